@@ -0,0 +1,45 @@
+package com.goldapp.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.function.BiFunction;
+
+// Reflection helpers for wiring services without a Spring context
+final class Fakes {
+
+    private Fakes() {}
+
+    static void setField(Object target, String name, Object value) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(target, value);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> T getField(Object target, String name) throws ReflectiveOperationException {
+        Field field = target.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return (T) field.get(target);
+    }
+
+    // Repository interface backed by a handler keyed on method name; unknown methods fail loudly
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, BiFunction<String, Object[], Object> handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "toString":
+                    return "Fake" + type.getSimpleName();
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "equals":
+                    return proxy == args[0];
+                default:
+                    Object result = handler.apply(method.getName(), args);
+                    if (result == null && method.getReturnType() != void.class) {
+                        throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                    }
+                    return result;
+            }
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package com.goldapp.benchmark;
+
+import com.goldapp.entity.GoldInventory;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// Weighted-average cost math in GoldInventory.addStock
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GoldInventoryBenchmark {
+
+    private static final BigDecimal LOT_GRAMS = new BigDecimal("12.345678");
+    private static final BigDecimal LOT_PRICE = new BigDecimal("63250.75");
+
+    private GoldInventory inventory;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        inventory = new GoldInventory(18, new BigDecimal("500.000000"), new BigDecimal("63000.00"));
+    }
+
+    @Benchmark
+    public BigDecimal addStock() {
+        inventory.addStock(LOT_GRAMS, LOT_PRICE);
+        return inventory.getAverageBuyPrice();
+    }
+
+    @Benchmark
+    public BigDecimal addThenRemoveStock() {
+        inventory.addStock(LOT_GRAMS, LOT_PRICE);
+        inventory.removeStock(LOT_GRAMS);
+        return inventory.getAverageBuyPrice();
+    }
+}
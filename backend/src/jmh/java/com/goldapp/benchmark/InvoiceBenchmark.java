@@ -0,0 +1,41 @@
+package com.goldapp.benchmark;
+
+import com.goldapp.entity.Invoice;
+import com.goldapp.entity.InvoiceItem;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Invoice.calculateTotals over a range of item counts
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InvoiceBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int itemCount;
+
+    private Invoice invoice;
+
+    @Setup
+    public void setUp() {
+        invoice = new Invoice();
+        List<InvoiceItem> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new InvoiceItem(invoice, "Oro 18k", new BigDecimal("3.125000"), new BigDecimal("63000.00"), 18));
+        }
+        invoice.setItems(items);
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotals() {
+        invoice.calculateTotals();
+        return invoice.getTotal();
+    }
+}
@@ -0,0 +1,47 @@
+package com.goldapp.benchmark;
+
+import com.goldapp.config.JwtTokenUtil;
+import com.goldapp.entity.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Token issue and the parse/validate path every authenticated request pays
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtTokenUtilBenchmark {
+
+    private JwtTokenUtil jwtTokenUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwtTokenUtil = new JwtTokenUtil();
+        Fakes.setField(jwtTokenUtil, "jwtSecret",
+                "devSecretKeyForJWTTokenGenerationThatIsLongEnoughForSecureHMACAlgorithmAtLeast256Bits");
+        Fakes.setField(jwtTokenUtil, "jwtExpirationMs", 86400000);
+        jwtTokenUtil.init();
+        user = new User("bench", "bench@goldapp.com", "secret", "Bench", "User");
+        token = jwtTokenUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtTokenUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtTokenUtil.extractUsername(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtTokenUtil.validateToken(token, user);
+    }
+}
@@ -0,0 +1,127 @@
+package com.goldapp.benchmark;
+
+import com.goldapp.entity.GoldPrice;
+import com.goldapp.entity.Transaction;
+import com.goldapp.entity.User;
+import com.goldapp.repository.TradeBatchRepository;
+import com.goldapp.service.GoldPriceService;
+import com.goldapp.service.GoldPriceSnapshot;
+import com.goldapp.service.OrderIntakeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+// The HTTP buy/sell path through OrderIntakeService with the JDBC batch repository and
+// transaction manager faked out, isolating queueing, batching and pricing. Several
+// threads submit at once so orders share batches as they do under real load.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class OrderIntakeBenchmark {
+
+    private static final BigDecimal TRADE_GRAMS = new BigDecimal("0.001");
+
+    private OrderIntakeService orderIntakeService;
+    private User user;
+    // Only touched by the intake worker thread
+    private BigDecimal balance;
+    private BigDecimal gold;
+
+    @Setup
+    public void setUp() throws Exception {
+        user = new User("bench", "bench@goldapp.com", "secret", "Bench", "User");
+        user.setId(1L);
+
+        GoldPrice price = new GoldPrice(new BigDecimal("2000.00"), new BigDecimal("1960.00"));
+        price.setId(1L);
+        GoldPriceService goldPriceService = new GoldPriceService();
+        Fakes.<AtomicReference<GoldPriceSnapshot>>getField(goldPriceService, "currentSnapshot")
+                .set(GoldPriceSnapshot.of(price));
+
+        AtomicLong ids = new AtomicLong();
+        TradeBatchRepository tradeBatchRepository = new TradeBatchRepository(null) {
+            @Override
+            public boolean[] applyBalanceDeltas(List<BalanceDelta> deltas, LocalDateTime now) {
+                boolean[] applied = new boolean[deltas.size()];
+                for (int i = 0; i < applied.length; i++) {
+                    applied[i] = applyDelta(deltas.get(i).balanceDelta(), deltas.get(i).goldDelta());
+                }
+                return applied;
+            }
+
+            @Override
+            public void insertTransactions(List<Transaction> transactions) {
+                transactions.forEach(tx -> tx.setId(ids.incrementAndGet()));
+            }
+        };
+
+        orderIntakeService = new OrderIntakeService(tradeBatchRepository, goldPriceService,
+                new TransactionTemplate(new NoOpTransactionManager()));
+        Fakes.setField(orderIntakeService, "maxBatchSize", 256);
+        Fakes.setField(orderIntakeService, "maxWaitMs", 2L);
+        Fakes.setField(orderIntakeService, "queueCapacity", 10000);
+        orderIntakeService.start();
+    }
+
+    @Setup(Level.Iteration)
+    public void resetAccount() {
+        balance = new BigDecimal("1000000000000.00");
+        gold = new BigDecimal("1000000000.000000");
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        orderIntakeService.stop();
+    }
+
+    @Benchmark
+    public Transaction buyGold() {
+        return orderIntakeService.submitBuy(user, TRADE_GRAMS).join();
+    }
+
+    @Benchmark
+    public Transaction sellGold() {
+        return orderIntakeService.submitSell(user, TRADE_GRAMS).join();
+    }
+
+    // Same guard as the conditional UPDATE in TradeBatchRepository
+    private boolean applyDelta(BigDecimal balanceDelta, BigDecimal goldDelta) {
+        BigDecimal newBalance = balance.add(balanceDelta);
+        BigDecimal newGold = gold.add(goldDelta);
+        if (newBalance.signum() < 0 || newGold.signum() < 0) {
+            return false;
+        }
+        balance = newBalance;
+        gold = newGold;
+        return true;
+    }
+
+    private static final class NoOpTransactionManager implements PlatformTransactionManager {
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
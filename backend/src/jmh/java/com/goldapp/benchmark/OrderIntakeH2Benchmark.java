@@ -0,0 +1,70 @@
+package com.goldapp.benchmark;
+
+import com.goldapp.GoldTradingApplication;
+import com.goldapp.entity.Transaction;
+import com.goldapp.entity.User;
+import com.goldapp.repository.UserRepository;
+import com.goldapp.service.OrderIntakeService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+// The HTTP buy/sell path through OrderIntakeService end to end against the dev
+// profile's in-memory H2 database, with several threads submitting at once
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(16)
+@Fork(1)
+public class OrderIntakeH2Benchmark {
+
+    private static final BigDecimal TRADE_GRAMS = new BigDecimal("0.001");
+
+    private ConfigurableApplicationContext context;
+    private OrderIntakeService orderIntakeService;
+    private JdbcTemplate jdbcTemplate;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        // Command-line arguments so they win over application-dev.properties
+        context = new SpringApplicationBuilder(GoldTradingApplication.class)
+                .run("--spring.profiles.active=dev",
+                        "--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.goldapp=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+        orderIntakeService = context.getBean(OrderIntakeService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        user = context.getBean(UserRepository.class).findByUsername("testuser")
+                .orElseThrow(() -> new IllegalStateException("testuser missing from data-h2.sql"));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetAccount() {
+        jdbcTemplate.update("UPDATE users SET account_balance = 1000000000000.00, gold_holdings = 1000000000.000000 WHERE id = ?",
+                user.getId());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Transaction buyGold() {
+        return orderIntakeService.submitBuy(user, TRADE_GRAMS).join();
+    }
+
+    @Benchmark
+    public Transaction sellGold() {
+        return orderIntakeService.submitSell(user, TRADE_GRAMS).join();
+    }
+}
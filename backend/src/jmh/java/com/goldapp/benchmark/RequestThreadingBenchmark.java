@@ -0,0 +1,94 @@
+package com.goldapp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldapp.GoldTradingApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Platform vs virtual request threads under load: each invocation sends `concurrency`
+// simultaneous requests to a JDBC-backed endpoint, more than Tomcat's 200 platform
+// threads. Scores are requests per second. virtual=true needs a Java 21 runtime; on
+// Java 17 run with -Djmh.args="-p virtual=false". Against PostgreSQL: -p profile=docker.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RequestThreadingBenchmark {
+
+    private static final int CONCURRENCY = 400;
+
+    @Param({"false", "true"})
+    private boolean virtual;
+
+    @Param({"dev"})
+    private String profile;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(GoldTradingApplication.class)
+                .run("--spring.profiles.active=" + profile,
+                        "--server.port=0",
+                        "--app.threads.virtual=" + virtual,
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.goldapp=WARN",
+                        "--logging.level.org.springframework.security=WARN");
+        String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+
+        HttpResponse<String> signin = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/signin"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"testuser\",\"password\":\"ChangeMe123!\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        String token = new ObjectMapper().readTree(signin.body()).path("token").asText(null);
+        if (token == null) {
+            throw new IllegalStateException("Sign-in failed: " + signin.statusCode() + " " + signin.body());
+        }
+        request = HttpRequest.newBuilder(URI.create(baseUrl + "/api/transactions/history/cursor?size=20"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public int concurrentRequests() {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(CONCURRENCY);
+        for (int i = 0; i < CONCURRENCY; i++) {
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+        int ok = 0;
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            if (response.join().statusCode() == 200) {
+                ok++;
+            }
+        }
+        if (ok != CONCURRENCY) {
+            throw new IllegalStateException((CONCURRENCY - ok) + " of " + CONCURRENCY + " requests failed");
+        }
+        return ok;
+    }
+}
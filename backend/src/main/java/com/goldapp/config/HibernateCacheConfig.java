@@ -0,0 +1,83 @@
+package com.goldapp.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+// Hibernate second-level and query cache regions, held in local Caffeine caches behind
+// JCache. Every region is declared here with its own TTL and size cap; an entity or
+// query naming any other region fails at startup (missing_cache_strategy=fail).
+//
+// Rows written with plain JDBC bypass Hibernate, so those writers evict what they
+// touched: InventoryMovementWriter for gold_inventory, DirectoryImportService for
+// clients and providers. Hit and miss counts are published as hibernate.* metrics.
+//
+// The caches are per node and nothing invalidates them across nodes, so a read can
+// trail another node's write (or a load racing a JDBC eviction) by up to the region's
+// TTL. Writes never do: clients and providers carry a version, so an update from a
+// stale copy fails, and gold_inventory's stock columns are only written as deltas.
+@Configuration
+public class HibernateCacheConfig {
+
+    public static final String GOLD_INVENTORY = "goldInventory";
+    public static final String CLIENTS = "clients";
+    public static final String PROVIDERS = "providers";
+    public static final String INVENTORY_QUERIES = "inventoryQueries";
+    public static final String DIRECTORY_QUERIES = "directoryQueries";
+
+    // Hibernate's own regions: results of queries cached without a region of their
+    // own, and the per-table write timestamps that invalidate cached queries
+    private static final String DEFAULT_QUERIES = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${app.cache.goldInventory.ttlSeconds:60}") long inventoryTtl,
+            @Value("${app.cache.goldInventory.maxEntries:100}") long inventoryMax,
+            @Value("${app.cache.directory.ttlSeconds:600}") long directoryTtl,
+            @Value("${app.cache.directory.maxEntries:20000}") long directoryMax,
+            @Value("${app.cache.queries.ttlSeconds:300}") long queryTtl,
+            @Value("${app.cache.queries.maxEntries:10000}") long queryMax) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+        createRegion(cacheManager, GOLD_INVENTORY, inventoryTtl, inventoryMax);
+        createRegion(cacheManager, CLIENTS, directoryTtl, directoryMax);
+        createRegion(cacheManager, PROVIDERS, directoryTtl, directoryMax);
+        createRegion(cacheManager, INVENTORY_QUERIES, queryTtl, queryMax);
+        createRegion(cacheManager, DIRECTORY_QUERIES, queryTtl, queryMax);
+        createRegion(cacheManager, DEFAULT_QUERIES, queryTtl, queryMax);
+        // Must outlive every cached query result, so timestamps never expire; one entry per table
+        createRegion(cacheManager, UPDATE_TIMESTAMPS, 0, 0);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateSecondLevelCache(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    // 0 leaves the TTL or size cap off
+    private static void createRegion(CacheManager cacheManager, String name, long ttlSeconds, long maxEntries) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (ttlSeconds > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        }
+        if (maxEntries > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        cacheManager.createCache(name, configuration);
+    }
+}
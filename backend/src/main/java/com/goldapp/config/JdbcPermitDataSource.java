@@ -0,0 +1,123 @@
+package com.goldapp.config;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.lang.NonNull;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Caps the threads holding connections with a fair semaphore in front of the pool. With
+// virtual threads thousands of requests can reach the database at once; they queue here,
+// parked and in arrival order, instead of all timing out together inside Hikari's
+// connection wait. The permit is held from getConnection() until the connection is
+// closed, and covers every connection its thread opens meanwhile: a REQUIRES_NEW
+// transaction's second connection goes straight to the pool, so holders never wait on
+// each other for permits.
+class JdbcPermitDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long timeoutMs;
+    // Connections open on each thread; the permit is taken by the first and released with it
+    private final ThreadLocal<AtomicInteger> openOnThread = ThreadLocal.withInitial(AtomicInteger::new);
+
+    JdbcPermitDataSource(DataSource target, int permits, long timeoutMs) {
+        super(target);
+        this.permits = new Semaphore(Math.max(1, permits), true);
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection() throws SQLException {
+        AtomicInteger open = openOnThread.get();
+        boolean permitted = open.get() == 0;
+        if (permitted) {
+            acquire();
+        }
+        try {
+            Connection connection = obtainTargetDataSource().getConnection();
+            open.incrementAndGet();
+            return releasingOnClose(connection, open, permitted);
+        } catch (SQLException | RuntimeException e) {
+            if (permitted) {
+                permits.release();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    @NonNull
+    public Connection getConnection(@NonNull String username, @NonNull String password) throws SQLException {
+        AtomicInteger open = openOnThread.get();
+        boolean permitted = open.get() == 0;
+        if (permitted) {
+            acquire();
+        }
+        try {
+            Connection connection = obtainTargetDataSource().getConnection(username, password);
+            open.incrementAndGet();
+            return releasingOnClose(connection, open, permitted);
+        } catch (SQLException | RuntimeException e) {
+            if (permitted) {
+                permits.release();
+            }
+            throw e;
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException("No database permit available within " + timeoutMs + " ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted waiting for a database permit", e);
+        }
+    }
+
+    private Connection releasingOnClose(Connection connection, AtomicInteger open, boolean permitted) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "close":
+                            if (released.compareAndSet(false, true)) {
+                                try {
+                                    return invoke(connection, method, args);
+                                } finally {
+                                    open.decrementAndGet();
+                                    if (permitted) {
+                                        permits.release();
+                                    }
+                                }
+                            }
+                            return null;
+                        default:
+                            return invoke(connection, method, args);
+                    }
+                });
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.goldapp.config;
 
+import com.goldapp.entity.User;
 import com.goldapp.service.UserService;
+import com.goldapp.service.UserTokenVersionCache;
 import org.springframework.lang.NonNull;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -12,6 +16,7 @@ import org.springframework.context.annotation.Lazy;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.slf4j.Logger;
@@ -31,39 +36,32 @@ public class JwtRequestFilter extends OncePerRequestFilter {
     @Autowired
     private JwtTokenUtil jwtTokenUtil;
 
+    @Autowired
+    private UserTokenVersionCache userTokenVersionCache;
+
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain chain)
             throws ServletException, IOException {
 
-    final String requestTokenHeader = request.getHeader("Authorization");
-    debugLogger.info("JWT Filter: Authorization header: {}", requestTokenHeader);
+        final String requestTokenHeader = request.getHeader("Authorization");
 
-        String username = null;
+        Claims claims = null;
         String jwtToken = null;
 
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
             jwtToken = requestTokenHeader.substring(7);
-            debugLogger.info("JWT Filter: Extracted token: {}", jwtToken);
             try {
-                username = jwtTokenUtil.extractUsername(jwtToken);
-                debugLogger.info("JWT Filter: Extracted username: {}", username);
-            } catch (IllegalArgumentException e) {
-                logger.error("Unable to get JWT Token");
-                debugLogger.error("JWT Filter: Unable to get JWT Token", e);
+                claims = jwtTokenUtil.getVerifiedClaims(jwtToken);
             } catch (ExpiredJwtException e) {
-                logger.error("JWT Token has expired");
-                debugLogger.error("JWT Filter: JWT Token has expired", e);
+                debugLogger.debug("JWT Filter: JWT Token has expired");
+            } catch (JwtException | IllegalArgumentException e) {
+                debugLogger.debug("JWT Filter: Unable to get JWT Token: {}", e.getMessage());
             }
-        } else {
-            debugLogger.warn("JWT Filter: No Bearer token found in Authorization header");
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            debugLogger.info("JWT Filter: Loading user details for username: {}", username);
-            UserDetails userDetails = this.userService.loadUserByUsername(username);
-
-            if (jwtTokenUtil.validateToken(jwtToken, userDetails)) {
-                debugLogger.info("JWT Filter: Token validated for user: {}", username);
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolvePrincipal(jwtToken, claims);
+            if (userDetails != null) {
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(
                                 userDetails, null, userDetails.getAuthorities());
@@ -71,11 +69,24 @@ public class JwtRequestFilter extends OncePerRequestFilter {
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
             } else {
-                debugLogger.warn("JWT Filter: Token validation failed for user: {}", username);
+                debugLogger.debug("JWT Filter: Token rejected for user: {}", claims.getSubject());
             }
-        } else {
-            debugLogger.warn("JWT Filter: Username is null or authentication already set");
         }
         chain.doFilter(request, response);
     }
-}
\ No newline at end of file
+
+    // The principal comes from the signed claims; only the token version is checked,
+    // against a cache. Tokens issued before the claims existed fall back to a user lookup.
+    private UserDetails resolvePrincipal(String jwtToken, Claims claims) {
+        User principal = jwtTokenUtil.toPrincipal(claims);
+        if (principal != null) {
+            return userTokenVersionCache.isCurrent(principal.getId(), principal.getTokenVersion()) ? principal : null;
+        }
+        try {
+            UserDetails userDetails = this.userService.loadUserByUsername(claims.getSubject());
+            return userDetails.isEnabled() && jwtTokenUtil.validateToken(jwtToken, userDetails) ? userDetails : null;
+        } catch (UsernameNotFoundException e) {
+            return null;
+        }
+    }
+}
@@ -1,27 +1,62 @@
 package com.goldapp.config;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import com.goldapp.entity.User;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 @Component
 public class JwtTokenUtil {
 
+    static final String CLAIM_USER_ID = "uid";
+    static final String CLAIM_ROLE = "role";
+    static final String CLAIM_TOKEN_VERSION = "ver";
+
     @Value("${app.jwtSecret:goldAppSecretKey}")
     private String jwtSecret;
 
     @Value("${app.jwtExpirationMs:86400000}")
     private int jwtExpirationMs;
 
+    @Value("${app.jwtCache.maxSize:10000}")
+    private long claimsCacheMaxSize = 10000;
+
+    @Value("${app.jwtCache.ttlMs:300000}")
+    private long claimsCacheTtlMs = 300000;
+
+    // Built once on first use; both are immutable and thread-safe
+    private volatile Key signKey;
+    private volatile JwtParser parser;
+
+    // Verified claims keyed by a SHA-256 of the token, so each token's signature is checked once
+    private Cache<String, Claims> verifiedClaims;
+
+    @PostConstruct
+    public void init() {
+        verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new ClaimsExpiry(TimeUnit.MILLISECONDS.toNanos(claimsCacheTtlMs)))
+                .build();
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -35,23 +70,48 @@ public class JwtTokenUtil {
         return claimsResolver.apply(claims);
     }
 
+    // Parse failures (bad signature, expired, malformed) propagate and are never cached
+    public Claims getVerifiedClaims(String token) {
+        return extractAllClaims(token);
+    }
+
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return verifiedClaims.get(hash(token), key -> getParser().parseClaimsJws(token).getBody());
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private Boolean isTokenExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user && user.getId() != null) {
+            claims.put(CLAIM_USER_ID, user.getId());
+            claims.put(CLAIM_ROLE, user.getRole().name());
+            claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
+    // Tokens issued before these claims existed return null and go through the user lookup
+    public User toPrincipal(Claims claims) {
+        Number userId = claims.get(CLAIM_USER_ID, Number.class);
+        String role = claims.get(CLAIM_ROLE, String.class);
+        if (userId == null || role == null || claims.get(CLAIM_TOKEN_VERSION) == null) {
+            return null;
+        }
+        User user = new User();
+        user.setId(userId.longValue());
+        user.setUsername(claims.getSubject());
+        user.setRole(User.Role.valueOf(role));
+        user.setTokenVersion(getTokenVersion(claims));
+        return user;
+    }
+
+    public int getTokenVersion(Claims claims) {
+        return claims.get(CLAIM_TOKEN_VERSION, Number.class).intValue();
+    }
+
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
@@ -63,12 +123,65 @@ public class JwtTokenUtil {
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final Claims claims = extractAllClaims(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !isTokenExpired(claims));
     }
 
     private Key getSignKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(jwtSecret);
-        return Keys.hmacShaKeyFor(keyBytes);
+        Key key = signKey;
+        if (key == null) {
+            key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+            signKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            current = Jwts.parserBuilder()
+                    .setSigningKey(getSignKey())
+                    .build();
+            parser = current;
+        }
+        return current;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    // Entries live until the token expires or the TTL passes, whichever comes first
+    private static final class ClaimsExpiry implements Expiry<String, Claims> {
+        private final long maxTtlNanos;
+
+        private ClaimsExpiry(long maxTtlNanos) {
+            this.maxTtlNanos = maxTtlNanos;
+        }
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) {
+                return maxTtlNanos;
+            }
+            long untilExpiry = TimeUnit.MILLISECONDS.toNanos(expiration.getTime() - System.currentTimeMillis());
+            return Math.max(0, Math.min(maxTtlNanos, untilExpiry));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
-}
\ No newline at end of file
+}
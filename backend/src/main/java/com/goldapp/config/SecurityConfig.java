@@ -1,9 +1,11 @@
 package com.goldapp.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -60,9 +62,15 @@ public class SecurityConfig {
                 .exceptionHandling(ex -> ex.authenticationEntryPoint(jwtAuthenticationEntryPoint))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authz -> authz
+                        // Async trade responses were already authorized on the original request
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         .requestMatchers(
                                 AntPathRequestMatcher.antMatcher("/api/auth/**"),
                                 AntPathRequestMatcher.antMatcher("/api/gold-prices/current"),
+                                AntPathRequestMatcher.antMatcher("/api/gold-prices/stream"),
+                                // Spot price times purity; the public stream pushes the same snapshots
+                                AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/carat-prices"),
+                                AntPathRequestMatcher.antMatcher(HttpMethod.GET, "/api/carat-prices/**"),
                                 AntPathRequestMatcher.antMatcher("/swagger-ui/**"),
                                 AntPathRequestMatcher.antMatcher("/v3/api-docs/**"),
                                 AntPathRequestMatcher.antMatcher("/actuator/**"),
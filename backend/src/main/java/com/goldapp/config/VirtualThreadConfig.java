@@ -0,0 +1,86 @@
+package com.goldapp.config;
+
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.sql.DataSource;
+import java.util.concurrent.ThreadFactory;
+
+// Opt-in (app.threads.virtual=true): HTTP requests, @Scheduled jobs, @Async work and MVC
+// async (streaming exports) run on virtual threads instead of Tomcat's 200-thread pool.
+// Requires a Java 21 runtime; startup fails on older ones rather than silently staying
+// on platform threads. The dedicated writer and dispatcher threads are not affected.
+@Configuration
+@ConditionalOnProperty(name = "app.threads.virtual", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadRequests() {
+        ThreadFactory factory = virtualThreadFactory("http-vt-");
+        logger.info("Serving requests on virtual threads");
+        return protocolHandler -> protocolHandler.setExecutor(task -> factory.newThread(task).start());
+    }
+
+    // Same pool size as the default scheduler, so jobs keep the concurrency they had
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${spring.task.scheduling.pool.size:1}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadFactory(virtualThreadFactory("scheduling-vt-"));
+        return scheduler;
+    }
+
+    // Replaces Boot's applicationTaskExecutor, which backs @Async and MVC async requests
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor();
+        executor.setThreadFactory(virtualThreadFactory("task-vt-"));
+        return executor;
+    }
+
+    // Connection demand is no longer capped by the request pool, so it is capped here. By
+    // default at half the Hikari pool: a caller that opens a REQUIRES_NEW transaction holds
+    // two connections, and with no more permits than that every such caller gets its second
+    @Bean
+    public static BeanPostProcessor jdbcPermitLimiter(@Value("${app.jdbcPermits.max:0}") int maxPermits,
+                                                      @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                                      @Value("${app.jdbcPermits.timeoutMs:30000}") long timeoutMs) {
+        int permits = maxPermits > 0 ? maxPermits : Math.max(1, poolSize / 2);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof JdbcPermitDataSource)) {
+                    logger.info("Capping JDBC access at {} threads", permits);
+                    return new JdbcPermitDataSource(dataSource, permits, timeoutMs);
+                }
+                return bean;
+            }
+        };
+    }
+
+    // Thread.ofVirtual() is Java 21 API; looked up reflectively so the build stays on Java 17
+    static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, prefix, 0L);
+            return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            throw new IllegalStateException("app.threads.virtual requires Java 21 or later, running " + Runtime.version(), e);
+        }
+    }
+}
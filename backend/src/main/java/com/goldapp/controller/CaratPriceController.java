@@ -1,7 +1,8 @@
 package com.goldapp.controller;
 
-import com.goldapp.entity.CaratPrice;
 import com.goldapp.service.CaratPriceService;
+import com.goldapp.service.CaratPriceSnapshot;
+import com.goldapp.service.CaratPriceSnapshot.CaratQuote;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -16,17 +17,22 @@ public class CaratPriceController {
     private CaratPriceService caratPriceService;
 
     @GetMapping("")
-    public ResponseEntity<List<CaratPrice>> getAllCaratPrices() {
+    public ResponseEntity<List<CaratQuote>> getAllCaratPrices() {
         return ResponseEntity.ok(caratPriceService.getAllCaratPrices());
     }
 
+    // All carats with the version and spot price they were derived from
+    @GetMapping("/snapshot")
+    public ResponseEntity<CaratPriceSnapshot> getSnapshot() {
+        return caratPriceService.getSnapshot()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/{carat}")
-    public ResponseEntity<CaratPrice> getCaratPrice(@PathVariable int carat) {
-        CaratPrice price = caratPriceService.getCaratPrice(carat);
-        if (price != null) {
-            return ResponseEntity.ok(price);
-        } else {
-            return ResponseEntity.notFound().build();
-        }
+    public ResponseEntity<CaratQuote> getCaratPrice(@PathVariable int carat) {
+        return caratPriceService.getCaratPrice(carat)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -1,16 +1,20 @@
 package com.goldapp.controller;
 
 import com.goldapp.entity.Client;
+import com.goldapp.service.DirectoryImportService;
+import com.goldapp.service.ExportFormat;
 import com.goldapp.service.ClientService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -21,6 +25,9 @@ public class ClientController {
     @Autowired
     private ClientService clientService;
     
+    @Autowired
+    private DirectoryImportService importService;
+    
     @PostMapping
     public ResponseEntity<?> createClient(@Valid @RequestBody Client client) {
         try {
@@ -31,6 +38,16 @@ public class ClientController {
         }
     }
     
+    // Raw CSV (with a header row) or NDJSON body; rows are upserted by cedula and bad rows reported
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importClients(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        try {
+            return ResponseEntity.ok(importService.importClients(body, ExportFormat.fromContentType(contentType)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<?> updateClient(@PathVariable Long id, @Valid @RequestBody Client client) {
         try {
@@ -79,8 +96,8 @@ public class ClientController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("lastName").ascending());
-        Page<Client> clients = clientService.searchClients(q, pageable);
+        // Best matches first, so the page carries no sort of its own
+        Page<Client> clients = clientService.searchClients(q, PageRequest.of(page, size));
         return ResponseEntity.ok(clients);
     }
     
@@ -1,19 +1,29 @@
 package com.goldapp.controller;
 
 import com.goldapp.entity.GoldInventory;
-import com.goldapp.entity.InventoryMovement;
+import com.goldapp.entity.InventoryDailyRollup;
+import com.goldapp.service.ExportFormat;
+import com.goldapp.service.ExportService;
+import com.goldapp.service.ExportStreamer;
 import com.goldapp.service.GoldInventoryService;
-import com.goldapp.repository.InventoryMovementRepository;
+import com.goldapp.service.InventoryItemSummary;
+import com.goldapp.service.KeysetPage;
+import com.goldapp.service.MovementSummary;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -26,7 +36,10 @@ public class GoldInventoryController {
     private GoldInventoryService inventoryService;
     
     @Autowired
-    private InventoryMovementRepository movementRepository;
+    private ExportService exportService;
+    
+    @Autowired
+    private ExportStreamer exportStreamer;
     
     @PostMapping
     public ResponseEntity<?> createInventory(@Valid @RequestBody GoldInventory inventory) {
@@ -66,30 +79,38 @@ public class GoldInventoryController {
     }
     
     @GetMapping
-    public ResponseEntity<List<GoldInventory>> getAllInventory() {
-        List<GoldInventory> inventory = inventoryService.getAllInventory();
+    public ResponseEntity<List<InventoryItemSummary>> getAllInventory() {
+        List<InventoryItemSummary> inventory = inventoryService.getInventorySummaries();
         return ResponseEntity.ok(inventory);
     }
     
     @GetMapping("/low-stock")
-    public ResponseEntity<List<GoldInventory>> getLowStockItems() {
-        List<GoldInventory> lowStockItems = inventoryService.getLowStockItems();
+    public ResponseEntity<List<InventoryItemSummary>> getLowStockItems() {
+        List<InventoryItemSummary> lowStockItems = inventoryService.getLowStockItems();
         return ResponseEntity.ok(lowStockItems);
     }
     
     @GetMapping("/over-stock")
-    public ResponseEntity<List<GoldInventory>> getOverStockItems() {
-        List<GoldInventory> overStockItems = inventoryService.getOverStockItems();
+    public ResponseEntity<List<InventoryItemSummary>> getOverStockItems() {
+        List<InventoryItemSummary> overStockItems = inventoryService.getOverStockItems();
         return ResponseEntity.ok(overStockItems);
     }
     
     @GetMapping("/summary")
     public ResponseEntity<?> getInventorySummary() {
         try {
-            BigDecimal totalValue = inventoryService.getTotalInventoryValue();
-            BigDecimal totalQuantity = inventoryService.getTotalGoldQuantity();
-            List<GoldInventory> lowStock = inventoryService.getLowStockItems();
-            List<GoldInventory> overStock = inventoryService.getOverStockItems();
+            // One row per carat, so the stock figures come from a single read
+            List<InventoryItemSummary> inventory = inventoryService.getInventorySummaries();
+            BigDecimal totalValue = BigDecimal.ZERO;
+            BigDecimal totalQuantity = BigDecimal.ZERO;
+            List<InventoryItemSummary> lowStock = new ArrayList<>();
+            List<InventoryItemSummary> overStock = new ArrayList<>();
+            for (InventoryItemSummary item : inventory) {
+                totalQuantity = totalQuantity.add(item.quantityInGrams());
+                totalValue = totalValue.add(item.inventoryValue());
+                if (item.lowStock()) lowStock.add(item);
+                if (item.overStock()) overStock.add(item);
+            }
             
             Map<String, Object> summary = Map.of(
                 "totalValue", totalValue,
@@ -97,7 +118,8 @@ public class GoldInventoryController {
                 "lowStockCount", lowStock.size(),
                 "overStockCount", overStock.size(),
                 "lowStockItems", lowStock,
-                "overStockItems", overStock
+                "overStockItems", overStock,
+                "todayMovements", inventoryService.getDailyRollups(LocalDate.now())
             );
             
             return ResponseEntity.ok(summary);
@@ -106,6 +128,13 @@ public class GoldInventoryController {
         }
     }
     
+    @GetMapping("/rollups")
+    public ResponseEntity<List<InventoryDailyRollup>> getDailyRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(inventoryService.getDailyRollups(startDate, endDate));
+    }
+    
     @PostMapping("/{inventoryId}/adjust")
     public ResponseEntity<?> adjustStock(
             @PathVariable Long inventoryId,
@@ -138,28 +167,55 @@ public class GoldInventoryController {
     }
     
     @GetMapping("/{inventoryId}/movements")
-    public ResponseEntity<Page<InventoryMovement>> getInventoryMovements(
+    public ResponseEntity<Page<MovementSummary>> getInventoryMovements(
             @PathVariable Long inventoryId,
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            GoldInventory inventory = inventoryService.getInventoryById(inventoryId);
-            Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-            Page<InventoryMovement> movements = movementRepository.findByInventoryOrderByCreatedAtDesc(inventory, pageable);
-            return ResponseEntity.ok(movements);
+            return ResponseEntity.ok(inventoryService.getMovements(inventoryId, page, size));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     @GetMapping("/movements")
-    public ResponseEntity<Page<InventoryMovement>> getAllMovements(
+    public ResponseEntity<Page<MovementSummary>> getAllMovements(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(inventoryService.getMovements(page, size));
+    }
+    
+    // Seeks on (createdAt, id); pass nextCursor back as cursor to continue
+    @GetMapping("/movements/cursor")
+    public ResponseEntity<?> getMovementFeed(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            KeysetPage<MovementSummary> movements = inventoryService.getMovements(cursor, Math.min(Math.max(size, 1), 100));
+            return ResponseEntity.ok(movements);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    @GetMapping("/movements/export")
+    public ResponseEntity<ResponseBodyEmitter> exportMovements(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromString(format);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("createdAt").descending());
-        Page<InventoryMovement> movements = movementRepository.findAllOrderByCreatedAtDesc(pageable);
-        return ResponseEntity.ok(movements);
+        StreamingResponseBody body = out -> exportService.exportInventoryMovements(startDate, endDate, exportFormat, out);
+        MediaType contentType = MediaType.parseMediaType(exportFormat.getContentType());
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportFormat.fileName("inventory-movements") + "\"")
+                .body(exportStreamer.stream(contentType, body));
     }
     
     @DeleteMapping("/{id}")
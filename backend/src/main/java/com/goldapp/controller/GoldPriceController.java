@@ -1,12 +1,26 @@
 package com.goldapp.controller;
 
 import com.goldapp.entity.GoldPrice;
+import com.goldapp.entity.PriceCandle;
+import com.goldapp.service.CaratPriceService;
 import com.goldapp.service.GoldPriceService;
+import com.goldapp.service.GoldPriceSnapshot;
+import com.goldapp.service.PriceHistoryService;
+import com.goldapp.service.PriceStreamService;
+import com.goldapp.service.PriceStreamService.StreamEvent;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 @RestController
@@ -17,9 +31,18 @@ public class GoldPriceController {
     @Autowired
     private GoldPriceService goldPriceService;
     
+    @Autowired
+    private CaratPriceService caratPriceService;
+    
+    @Autowired
+    private PriceStreamService priceStreamService;
+    
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+    
     @GetMapping("/current")
     public ResponseEntity<?> getCurrentPrice() {
-        Optional<GoldPrice> currentPrice = goldPriceService.getCurrentPrice();
+        Optional<GoldPriceSnapshot> currentPrice = goldPriceService.getCurrentPrice();
         
         if (currentPrice.isPresent()) {
             return ResponseEntity.ok(currentPrice.get());
@@ -34,4 +57,41 @@ public class GoldPriceController {
         GoldPrice updatedPrice = goldPriceService.updatePrice(buyPrice, sellPrice);
         return ResponseEntity.ok(updatedPrice);
     }
-}
\ No newline at end of file
+    
+    // OHLC candles for a chart range; resolution (1m, 1h, 1d) is picked from the range when omitted
+    @GetMapping("/history")
+    public ResponseEntity<?> getPriceHistory(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String resolution) {
+        try {
+            List<PriceCandle> candles = priceHistoryService.getChart(startDate, endDate, resolution);
+            return ResponseEntity.ok(candles);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
+    // Pushes gold-price and carat-price events; starts with the current prices unless
+    // a reconnecting client's Last-Event-ID is still in the buffer
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamPrices(
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+            HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(priceStreamService.subscribe(request.getRemoteAddr(), lastEventId,
+                    this::currentPrices));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+    }
+    
+    private List<StreamEvent> currentPrices() {
+        List<StreamEvent> events = new ArrayList<>();
+        goldPriceService.getCurrentPrice()
+                .ifPresent(price -> events.add(new StreamEvent(PriceStreamService.GOLD_EVENT, price)));
+        caratPriceService.getSnapshot()
+                .ifPresent(snapshot -> events.add(new StreamEvent(PriceStreamService.CARAT_EVENT, snapshot)));
+        return events;
+    }
+}
@@ -1,22 +1,28 @@
 package com.goldapp.controller;
 
 import com.goldapp.entity.Invoice;
-import com.goldapp.entity.Client;
-import com.goldapp.entity.Provider;
+import com.goldapp.entity.InvoiceDailyRollup;
+import com.goldapp.service.ExportFormat;
+import com.goldapp.service.ExportService;
+import com.goldapp.service.ExportStreamer;
 import com.goldapp.service.InvoiceService;
+import com.goldapp.service.InvoiceSummary;
 import com.goldapp.service.ClientService;
 import com.goldapp.service.ProviderService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -35,6 +41,12 @@ public class InvoiceController {
     @Autowired
     private ProviderService providerService;
     
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private ExportStreamer exportStreamer;
+    
     @PostMapping
     public ResponseEntity<?> createInvoice(@Valid @RequestBody Invoice invoice) {
         try {
@@ -58,8 +70,7 @@ public class InvoiceController {
     @GetMapping("/{id}")
     public ResponseEntity<?> getInvoice(@PathVariable Long id) {
         try {
-            Invoice invoice = invoiceService.getInvoiceById(id);
-            return ResponseEntity.ok(invoice);
+            return ResponseEntity.ok(invoiceService.getInvoiceDetail(id));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -68,8 +79,7 @@ public class InvoiceController {
     @GetMapping("/number/{invoiceNumber}")
     public ResponseEntity<?> getInvoiceByNumber(@PathVariable String invoiceNumber) {
         try {
-            Invoice invoice = invoiceService.getInvoiceByNumber(invoiceNumber);
-            return ResponseEntity.ok(invoice);
+            return ResponseEntity.ok(invoiceService.getInvoiceDetailByNumber(invoiceNumber));
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -81,9 +91,8 @@ public class InvoiceController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            Client client = clientService.getClientById(clientId);
-            Pageable pageable = PageRequest.of(page, size, Sort.by("issueDate").descending());
-            Page<Invoice> invoices = invoiceService.getInvoicesByClient(client, pageable);
+            clientService.getClientById(clientId);
+            Page<InvoiceSummary> invoices = invoiceService.getInvoiceSummariesByClient(clientId, PageRequest.of(page, size));
             return ResponseEntity.ok(invoices);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -96,9 +105,8 @@ public class InvoiceController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         try {
-            Provider provider = providerService.getProviderById(providerId);
-            Pageable pageable = PageRequest.of(page, size, Sort.by("issueDate").descending());
-            Page<Invoice> invoices = invoiceService.getInvoicesByProvider(provider, pageable);
+            providerService.getProviderById(providerId);
+            Page<InvoiceSummary> invoices = invoiceService.getInvoiceSummariesByProvider(providerId, PageRequest.of(page, size));
             return ResponseEntity.ok(invoices);
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
@@ -106,10 +114,10 @@ public class InvoiceController {
     }
     
     @GetMapping("/status/{status}")
-    public ResponseEntity<List<Invoice>> getInvoicesByStatus(@PathVariable String status) {
+    public ResponseEntity<List<InvoiceSummary>> getInvoicesByStatus(@PathVariable String status) {
         try {
             Invoice.InvoiceStatus invoiceStatus = Invoice.InvoiceStatus.valueOf(status.toUpperCase());
-            List<Invoice> invoices = invoiceService.getInvoicesByStatus(invoiceStatus);
+            List<InvoiceSummary> invoices = invoiceService.getInvoicesByStatus(invoiceStatus);
             return ResponseEntity.ok(invoices);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
@@ -117,10 +125,10 @@ public class InvoiceController {
     }
     
     @GetMapping("/type/{type}")
-    public ResponseEntity<List<Invoice>> getInvoicesByType(@PathVariable String type) {
+    public ResponseEntity<List<InvoiceSummary>> getInvoicesByType(@PathVariable String type) {
         try {
             Invoice.InvoiceType invoiceType = Invoice.InvoiceType.valueOf(type.toUpperCase());
-            List<Invoice> invoices = invoiceService.getInvoicesByType(invoiceType);
+            List<InvoiceSummary> invoices = invoiceService.getInvoicesByType(invoiceType);
             return ResponseEntity.ok(invoices);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
@@ -128,38 +136,63 @@ public class InvoiceController {
     }
     
     @GetMapping("/date-range")
-    public ResponseEntity<List<Invoice>> getInvoicesByDateRange(
+    public ResponseEntity<List<InvoiceSummary>> getInvoicesByDateRange(
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate) {
         
-        List<Invoice> invoices = invoiceService.getInvoicesByDateRange(startDate, endDate);
+        List<InvoiceSummary> invoices = invoiceService.getInvoicesByDateRange(startDate, endDate);
         return ResponseEntity.ok(invoices);
     }
     
+    @GetMapping("/export")
+    public ResponseEntity<ResponseBodyEmitter> exportInvoices(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromString(format);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        StreamingResponseBody body = out -> exportService.exportInvoices(startDate, endDate, exportFormat, out);
+        MediaType contentType = MediaType.parseMediaType(exportFormat.getContentType());
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportFormat.fileName("invoices") + "\"")
+                .body(exportStreamer.stream(contentType, body));
+    }
+    
+    @GetMapping("/rollups")
+    public ResponseEntity<List<InvoiceDailyRollup>> getDailyRollups(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        return ResponseEntity.ok(invoiceService.getDailyRollups(startDate, endDate));
+    }
+    
     @GetMapping("/overdue")
-    public ResponseEntity<List<Invoice>> getOverdueInvoices() {
-        List<Invoice> overdueInvoices = invoiceService.getOverdueInvoices();
+    public ResponseEntity<List<InvoiceSummary>> getOverdueInvoices() {
+        List<InvoiceSummary> overdueInvoices = invoiceService.getOverdueInvoices();
         return ResponseEntity.ok(overdueInvoices);
     }
     
     @GetMapping("/summary")
     public ResponseEntity<?> getInvoiceSummary() {
         try {
-            BigDecimal salesTotal = invoiceService.getTotalAmountByTypeAndStatus(
+            BigDecimal salesTotal = invoiceService.getRolledUpTotal(
                     Invoice.InvoiceType.SALE, Invoice.InvoiceStatus.PAID);
-            BigDecimal purchasesTotal = invoiceService.getTotalAmountByTypeAndStatus(
+            BigDecimal purchasesTotal = invoiceService.getRolledUpTotal(
                     Invoice.InvoiceType.PURCHASE, Invoice.InvoiceStatus.PAID);
-            BigDecimal pendingSales = invoiceService.getTotalAmountByTypeAndStatus(
+            BigDecimal pendingSales = invoiceService.getRolledUpTotal(
                     Invoice.InvoiceType.SALE, Invoice.InvoiceStatus.ISSUED);
             
-            List<Invoice> overdueInvoices = invoiceService.getOverdueInvoices();
-            
+            // The overdue list itself is served by /overdue
             Map<String, Object> summary = Map.of(
                 "totalSales", salesTotal,
                 "totalPurchases", purchasesTotal,
                 "pendingSales", pendingSales,
-                "overdueCount", overdueInvoices.size(),
-                "overdueInvoices", overdueInvoices
+                "overdueCount", invoiceService.countOverdueInvoices()
             );
             
             return ResponseEntity.ok(summary);
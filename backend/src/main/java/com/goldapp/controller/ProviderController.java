@@ -1,16 +1,25 @@
 package com.goldapp.controller;
 
 import com.goldapp.entity.Provider;
+import com.goldapp.entity.User;
+import com.goldapp.service.DirectoryImportService;
+import com.goldapp.service.ExportFormat;
 import com.goldapp.service.ProviderService;
+import com.goldapp.service.ShipmentLot;
+import com.goldapp.service.ShipmentReceipt;
+import com.goldapp.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -21,6 +30,12 @@ public class ProviderController {
     @Autowired
     private ProviderService providerService;
     
+    @Autowired
+    private DirectoryImportService importService;
+    
+    @Autowired
+    private TransactionService transactionService;
+    
     @PostMapping
     public ResponseEntity<?> createProvider(@Valid @RequestBody Provider provider) {
         try {
@@ -31,6 +46,16 @@ public class ProviderController {
         }
     }
     
+    // Raw CSV (with a header row) or NDJSON body; rows are upserted by cedula and bad rows reported
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importProviders(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        try {
+            return ResponseEntity.ok(importService.importProviders(body, ExportFormat.fromContentType(contentType)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<?> updateProvider(@PathVariable Long id, @Valid @RequestBody Provider provider) {
         try {
@@ -51,6 +76,20 @@ public class ProviderController {
         }
     }
     
+    // Receives every lot of a shipment in one commit; lots may mix carats
+    @PostMapping("/{id}/shipments")
+    public ResponseEntity<?> receiveShipment(@AuthenticationPrincipal User user,
+                                             @PathVariable Long id,
+                                             @RequestBody List<ShipmentLot> lots) {
+        try {
+            Provider provider = providerService.getProviderById(id);
+            ShipmentReceipt receipt = transactionService.receiveShipment(user, provider, lots);
+            return ResponseEntity.ok(receipt);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/cedula/{cedula}")
     public ResponseEntity<?> getProviderByCedula(@PathVariable String cedula) {
         return providerService.getProviderByCedula(cedula)
@@ -79,8 +118,8 @@ public class ProviderController {
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size) {
         
-        Pageable pageable = PageRequest.of(page, size, Sort.by("lastName").ascending());
-        Page<Provider> providers = providerService.searchProviders(q, pageable);
+        // Best matches first, so the page carries no sort of its own
+        Page<Provider> providers = providerService.searchProviders(q, PageRequest.of(page, size));
         return ResponseEntity.ok(providers);
     }
     
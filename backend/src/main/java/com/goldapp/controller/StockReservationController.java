@@ -0,0 +1,78 @@
+package com.goldapp.controller;
+
+import com.goldapp.entity.Transaction;
+import com.goldapp.entity.User;
+import com.goldapp.service.StockReservationService;
+import com.goldapp.service.StockReservationService.StockReservation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/inventory/reservations")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class StockReservationController {
+
+    @Autowired
+    private StockReservationService reservationService;
+
+    @PostMapping
+    public ResponseEntity<?> holdStock(@AuthenticationPrincipal User user,
+                                       @RequestParam Integer carat,
+                                       @RequestParam BigDecimal grams,
+                                       @RequestParam BigDecimal pricePerGram,
+                                       @RequestParam(required = false) Long ttlSeconds) {
+        try {
+            StockReservation reservation = reservationService.hold(user, carat, grams, pricePerGram, ttlSeconds);
+            return ResponseEntity.ok(reservation);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<List<StockReservation>> getActiveReservations() {
+        return ResponseEntity.ok(reservationService.getActiveReservations());
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getReservation(@PathVariable String id) {
+        try {
+            return ResponseEntity.ok(reservationService.getReservation(id));
+        } catch (RuntimeException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PostMapping("/{id}/confirm")
+    public ResponseEntity<?> confirmReservation(@AuthenticationPrincipal User user,
+                                                @PathVariable String id,
+                                                @RequestParam Long clientId) {
+        try {
+            Transaction transaction = reservationService.confirm(id, user, clientId);
+            return ResponseEntity.ok(transaction);
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> releaseReservation(@AuthenticationPrincipal User user, @PathVariable String id) {
+        try {
+            reservationService.release(id, user);
+            return ResponseEntity.ok().build();
+        } catch (AccessDeniedException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
@@ -2,18 +2,30 @@ package com.goldapp.controller;
 
 import com.goldapp.entity.Transaction;
 import com.goldapp.entity.User;
+import com.goldapp.service.ExportFormat;
+import com.goldapp.service.ExportService;
+import com.goldapp.service.ExportStreamer;
+import com.goldapp.service.KeysetPage;
+import com.goldapp.service.OrderIntakeService;
 import com.goldapp.service.TransactionService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -23,26 +35,25 @@ public class TransactionController {
     @Autowired
     private TransactionService transactionService;
     
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+    
+    @Autowired
+    private ExportService exportService;
+    
+    @Autowired
+    private ExportStreamer exportStreamer;
+    
     @PostMapping("/buy")
-    public ResponseEntity<?> buyGold(@AuthenticationPrincipal User user, 
-                                   @RequestParam BigDecimal amount) {
-        try {
-            Transaction transaction = transactionService.buyGold(user, amount);
-            return ResponseEntity.ok(transaction);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+    public CompletableFuture<ResponseEntity<?>> buyGold(@AuthenticationPrincipal User user, 
+                                                        @RequestParam BigDecimal amount) {
+        return toResponse(orderIntakeService.submitBuy(user, amount));
     }
     
     @PostMapping("/sell")
-    public ResponseEntity<?> sellGold(@AuthenticationPrincipal User user, 
-                                    @RequestParam BigDecimal amount) {
-        try {
-            Transaction transaction = transactionService.sellGold(user, amount);
-            return ResponseEntity.ok(transaction);
-        } catch (RuntimeException e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
-        }
+    public CompletableFuture<ResponseEntity<?>> sellGold(@AuthenticationPrincipal User user, 
+                                                         @RequestParam BigDecimal amount) {
+        return toResponse(orderIntakeService.submitSell(user, amount));
     }
     
     @GetMapping("/history")
@@ -56,6 +67,21 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    // Seeks on (createdAt, id); pass nextCursor back as cursor to continue
+    @GetMapping("/history/cursor")
+    public ResponseEntity<?> getTransactionFeed(
+            @AuthenticationPrincipal User user,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            KeysetPage<Transaction> transactions = transactionService.getUserTransactions(
+                    user.getId(), cursor, Math.min(Math.max(size, 1), 100));
+            return ResponseEntity.ok(transactions);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     @GetMapping("/history/range")
     public ResponseEntity<List<Transaction>> getTransactionsByDateRange(
             @AuthenticationPrincipal User user,
@@ -69,6 +95,28 @@ public class TransactionController {
         return ResponseEntity.ok(transactions);
     }
     
+    @GetMapping("/export")
+    public ResponseEntity<ResponseBodyEmitter> exportTransactions(
+            @AuthenticationPrincipal User user,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(defaultValue = "csv") String format) {
+        ExportFormat exportFormat;
+        try {
+            exportFormat = ExportFormat.fromString(format);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        Long userId = user.getId();
+        StreamingResponseBody body = out -> exportService.exportTransactions(userId, startDate, endDate, exportFormat, out);
+        MediaType contentType = MediaType.parseMediaType(exportFormat.getContentType());
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + exportFormat.fileName("transactions") + "\"")
+                .body(exportStreamer.stream(contentType, body));
+    }
+    
     @GetMapping("/{id}")
     public ResponseEntity<Transaction> getTransaction(@PathVariable Long id) {
         try {
@@ -78,4 +126,14 @@ public class TransactionController {
             return ResponseEntity.notFound().build();
         }
     }
+    
+    private CompletableFuture<ResponseEntity<?>> toResponse(CompletableFuture<Transaction> order) {
+        return order.handle((transaction, e) -> {
+            if (e == null) {
+                return ResponseEntity.ok(transaction);
+            }
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            return ResponseEntity.badRequest().body(cause.getMessage());
+        });
+    }
 }
\ No newline at end of file
@@ -0,0 +1,91 @@
+package com.goldapp.controller;
+
+import com.goldapp.entity.User;
+import com.goldapp.service.UserService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Account changes that revoke the user's outstanding tokens
+@RestController
+@RequestMapping("/api/users")
+@CrossOrigin(origins = "*", maxAge = 3600)
+public class UserController {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @PutMapping("/me/password")
+    public ResponseEntity<?> changePassword(@AuthenticationPrincipal User principal,
+                                            @RequestBody ChangePasswordRequest request) {
+        try {
+            // The principal is built from token claims and carries no password hash
+            User user = userService.findById(principal.getId())
+                    .orElseThrow(() -> new RuntimeException("User not found: " + principal.getId()));
+            if (request.getCurrentPassword() == null
+                    || !passwordEncoder.matches(request.getCurrentPassword(), user.getPassword())) {
+                throw new RuntimeException("Current password is incorrect");
+            }
+            if (request.getNewPassword() == null || request.getNewPassword().isBlank()) {
+                throw new RuntimeException("New password is required");
+            }
+            userService.changePassword(user.getId(), passwordEncoder.encode(request.getNewPassword()));
+
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "Password changed; sign in again");
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}/role")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> changeRole(@PathVariable Long id, @RequestParam User.Role role) {
+        try {
+            return ResponseEntity.ok(accountStatus(userService.changeRole(id, role)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    @PutMapping("/{id}/enabled")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> setEnabled(@PathVariable Long id, @RequestParam boolean enabled) {
+        try {
+            return ResponseEntity.ok(accountStatus(userService.setEnabled(id, enabled)));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
+        }
+    }
+
+    private static Map<String, Object> accountStatus(User user) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("id", user.getId());
+        response.put("username", user.getUsername());
+        response.put("role", user.getRole());
+        response.put("enabled", user.isEnabled());
+        return response;
+    }
+
+    // Request DTOs
+    public static class ChangePasswordRequest {
+        private String currentPassword;
+        private String newPassword;
+
+        public String getCurrentPassword() { return currentPassword; }
+        public void setCurrentPassword(String currentPassword) { this.currentPassword = currentPassword; }
+
+        public String getNewPassword() { return newPassword; }
+        public void setNewPassword(String newPassword) { this.newPassword = newPassword; }
+    }
+}
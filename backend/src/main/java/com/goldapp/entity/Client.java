@@ -1,15 +1,20 @@
 package com.goldapp.entity;
 
+import com.goldapp.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "clients")
+@Table(name = "clients", indexes = @Index(name = "idx_clients_email", columnList = "email"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.CLIENTS)
 public class Client {
     
     @Id
@@ -67,6 +72,11 @@ public class Client {
     
     private LocalDateTime updatedAt;
     
+    // A copy cached on another node, or re-cached just before a JDBC import updated the
+    // row, fails its update instead of overwriting the newer row
+    @Version
+    private Long version;
+    
     @OneToMany(mappedBy = "client", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transaction> transactions;
     
@@ -1,8 +1,12 @@
 package com.goldapp.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.goldapp.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -11,6 +15,8 @@ import java.util.List;
 
 @Entity
 @Table(name = "gold_inventory")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.GOLD_INVENTORY)
 public class GoldInventory {
     
     @Id
@@ -21,14 +27,15 @@ public class GoldInventory {
     @Column(nullable = false)
     private Integer carat; // 10, 14, 18, 22, 24
     
+    // Stock is written only by the inventory book's write-behind, as deltas
     @NotNull
     @DecimalMin(value = "0.0")
-    @Column(precision = 19, scale = 6, nullable = false)
+    @Column(precision = 19, scale = 6, nullable = false, updatable = false)
     private BigDecimal quantityInGrams = BigDecimal.ZERO;
     
     @NotNull
     @DecimalMin(value = "0.0")
-    @Column(precision = 19, scale = 2, nullable = false)
+    @Column(precision = 19, scale = 2, nullable = false, updatable = false)
     private BigDecimal averageBuyPrice = BigDecimal.ZERO; // Average price paid per gram
     
     @DecimalMin(value = "0.0")
@@ -44,6 +51,8 @@ public class GoldInventory {
     @Column(length = 500)
     private String notes;
     
+    // Full history; served paged from /api/inventory/{id}/movements instead
+    @JsonIgnore
     @OneToMany(mappedBy = "inventory", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<InventoryMovement> movements;
     
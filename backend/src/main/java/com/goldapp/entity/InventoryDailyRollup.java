@@ -0,0 +1,46 @@
+package com.goldapp.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Stock movements per day and carat; kept up to date by the inventory write-behind
+@Entity
+@Table(name = "inventory_daily_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"rollup_date", "carat"}))
+public class InventoryDailyRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(nullable = false)
+    private int carat;
+
+    @Column(nullable = false)
+    private long movementCount;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal quantityIn = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal quantityOut = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal valueIn = BigDecimal.ZERO;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal valueOut = BigDecimal.ZERO;
+
+    public InventoryDailyRollup() {}
+    public Long getId() { return id; }
+    public LocalDate getRollupDate() { return rollupDate; }
+    public int getCarat() { return carat; }
+    public long getMovementCount() { return movementCount; }
+    public BigDecimal getQuantityIn() { return quantityIn; }
+    public BigDecimal getQuantityOut() { return quantityOut; }
+    public BigDecimal getValueIn() { return valueIn; }
+    public BigDecimal getValueOut() { return valueOut; }
+}
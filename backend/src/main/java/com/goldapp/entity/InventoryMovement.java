@@ -1,5 +1,6 @@
 package com.goldapp.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
@@ -12,13 +13,16 @@ import java.time.LocalDateTime;
 public class InventoryMovement {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_movements_seq")
+    @SequenceGenerator(name = "inventory_movements_seq", sequenceName = "inventory_movements_seq", allocationSize = 50)
     private Long id;
     
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "inventory_id", nullable = false)
     private GoldInventory inventory;
     
+    @JsonIgnore
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "transaction_id")
     private Transaction transaction;
@@ -93,6 +97,10 @@ public class InventoryMovement {
         IN,     // Stock increase (buying from providers)
         OUT,    // Stock decrease (selling to clients)
         ADJUSTMENT_IN,   // Manual stock increase
-        ADJUSTMENT_OUT   // Manual stock decrease
+        ADJUSTMENT_OUT;  // Manual stock decrease
+        
+        public boolean isIncoming() {
+            return this == IN || this == ADJUSTMENT_IN;
+        }
     }
 }
\ No newline at end of file
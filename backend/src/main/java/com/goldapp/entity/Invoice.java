@@ -15,7 +15,10 @@ import java.util.List;
 public class Invoice {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence: ids come 50 per round trip and, unlike IDENTITY, let Hibernate
+    // batch the invoice and its cascaded items (hibernate.jdbc.batch_size)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoices_seq")
+    @SequenceGenerator(name = "invoices_seq", sequenceName = "invoices_seq", allocationSize = 50)
     private Long id;
     
     @NotBlank
@@ -32,7 +35,7 @@ public class Invoice {
     private Provider provider;
     
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "transaction_id", nullable = false)
+    @JoinColumn(name = "transaction_id", nullable = false, unique = true)
     private Transaction transaction;
     
     @NotNull
@@ -0,0 +1,44 @@
+package com.goldapp.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Invoice count and total per issue day, type and status; kept up to date by InvoiceService.
+// The row dated RUNNING_TOTAL_DATE holds the all-time count and total for its type and status.
+@Entity
+@Table(name = "invoice_daily_rollups",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"rollup_date", "invoice_type", "status"}))
+public class InvoiceDailyRollup {
+
+    public static final LocalDate RUNNING_TOTAL_DATE = LocalDate.of(1, 1, 1);
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "invoice_type", nullable = false, length = 20)
+    private Invoice.InvoiceType invoiceType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Invoice.InvoiceStatus status;
+
+    @Column(nullable = false)
+    private long invoiceCount;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal totalAmount = BigDecimal.ZERO;
+
+    public InvoiceDailyRollup() {}
+    public Long getId() { return id; }
+    public LocalDate getRollupDate() { return rollupDate; }
+    public Invoice.InvoiceType getInvoiceType() { return invoiceType; }
+    public Invoice.InvoiceStatus getStatus() { return status; }
+    public long getInvoiceCount() { return invoiceCount; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+}
@@ -0,0 +1,24 @@
+package com.goldapp.entity;
+
+import jakarta.persistence.*;
+
+// Next unreserved invoice sequence number for one month ("2024-05")
+@Entity
+@Table(name = "invoice_number_sequences")
+public class InvoiceNumberSequence {
+    @Id
+    @Column(length = 7)
+    private String period;
+
+    @Column(nullable = false)
+    private long nextValue;
+
+    public InvoiceNumberSequence() {}
+    public InvoiceNumberSequence(String period, long nextValue) {
+        this.period = period;
+        this.nextValue = nextValue;
+    }
+    public String getPeriod() { return period; }
+    public long getNextValue() { return nextValue; }
+    public void setNextValue(long nextValue) { this.nextValue = nextValue; }
+}
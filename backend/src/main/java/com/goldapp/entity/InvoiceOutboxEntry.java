@@ -0,0 +1,60 @@
+package com.goldapp.entity;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+// A committed trade waiting for its invoice. Written in the trade's own transaction;
+// the invoice generator claims due rows by pushing nextAttemptAt out by a lease.
+@Entity
+@Table(name = "invoice_outbox",
+       indexes = @Index(name = "idx_invoice_outbox_status_next_attempt", columnList = "status,next_attempt_at"))
+public class InvoiceOutboxEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "invoice_outbox_seq")
+    @SequenceGenerator(name = "invoice_outbox_seq", sequenceName = "invoice_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private Long transactionId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private Status status = Status.PENDING;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(length = 500)
+    private String lastError;
+
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime processedAt;
+
+    public InvoiceOutboxEntry() {}
+
+    public InvoiceOutboxEntry(Long transactionId) {
+        this.transactionId = transactionId;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+    public Long getTransactionId() { return transactionId; }
+    public Status getStatus() { return status; }
+    public int getAttempts() { return attempts; }
+    public LocalDateTime getNextAttemptAt() { return nextAttemptAt; }
+    public String getLastError() { return lastError; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public LocalDateTime getProcessedAt() { return processedAt; }
+
+    public enum Status {
+        PENDING, DONE, FAILED
+    }
+}
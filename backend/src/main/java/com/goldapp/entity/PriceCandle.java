@@ -0,0 +1,89 @@
+package com.goldapp.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+// OHLC of the gold buy price per bucket, downsampled from price_ticks by PriceHistoryService
+@Entity
+@Table(name = "price_candles",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"resolution", "bucket_start"}))
+public class PriceCandle {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Resolution resolution;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal open;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal high;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal low;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal close;
+
+    // Sell price at the close, so a chart can show the spread
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal closeSell;
+
+    @Column(nullable = false)
+    private long tickCount;
+
+    public PriceCandle() {}
+    public Long getId() { return id; }
+    public Resolution getResolution() { return resolution; }
+    public LocalDateTime getBucketStart() { return bucketStart; }
+    public BigDecimal getOpen() { return open; }
+    public BigDecimal getHigh() { return high; }
+    public BigDecimal getLow() { return low; }
+    public BigDecimal getClose() { return close; }
+    public BigDecimal getCloseSell() { return closeSell; }
+    public long getTickCount() { return tickCount; }
+
+    public enum Resolution {
+        MINUTE("1m", ChronoUnit.MINUTES),
+        HOUR("1h", ChronoUnit.HOURS),
+        DAY("1d", ChronoUnit.DAYS);
+
+        private final String code;
+        private final ChronoUnit unit;
+
+        Resolution(String code, ChronoUnit unit) {
+            this.code = code;
+            this.unit = unit;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public Duration getDuration() {
+            return unit.getDuration();
+        }
+
+        public LocalDateTime truncate(LocalDateTime time) {
+            return time.truncatedTo(unit);
+        }
+
+        public static Resolution fromString(String value) {
+            for (Resolution resolution : values()) {
+                if (resolution.code.equalsIgnoreCase(value) || resolution.name().equalsIgnoreCase(value)) {
+                    return resolution;
+                }
+            }
+            throw new RuntimeException("Unsupported resolution: " + value + " (use 1m, 1h or 1d)");
+        }
+    }
+}
@@ -1,15 +1,20 @@
 package com.goldapp.entity;
 
+import com.goldapp.config.HibernateCacheConfig;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name = "providers")
+@Table(name = "providers", indexes = @Index(name = "idx_providers_email", columnList = "email"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.PROVIDERS)
 public class Provider {
     
     @Id
@@ -73,6 +78,11 @@ public class Provider {
     
     private LocalDateTime updatedAt;
     
+    // A copy cached on another node, or re-cached just before a JDBC import updated the
+    // row, fails its update instead of overwriting the newer row
+    @Version
+    private Long version;
+    
     @OneToMany(mappedBy = "provider", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Transaction> transactions;
     
@@ -1,5 +1,6 @@
 package com.goldapp.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotNull;
@@ -16,8 +17,11 @@ import java.util.Set;
            @Index(name = "idx_tx_user", columnList = "user_id"),
            @Index(name = "idx_tx_client", columnList = "client_id"),
            @Index(name = "idx_tx_provider", columnList = "provider_id"),
-           @Index(name = "idx_tx_type_created", columnList = "type,created_at")
-       })
+           @Index(name = "idx_tx_type_created", columnList = "type,created_at"),
+           @Index(name = "idx_transactions_user_created_at_id", columnList = "user_id,created_at,id")
+       },
+       uniqueConstraints = @UniqueConstraint(name = "uk_transactions_user_idempotency_key",
+                                             columnNames = {"user_id", "idempotency_key"}))
 public class Transaction {
 
     public static final Set<Integer> ALLOWED_CARATS = Set.of(10, 14, 18, 22, 24);
@@ -25,7 +29,8 @@ public class Transaction {
     private static final int MONEY_SCALE = 2;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transactions_seq")
+    @SequenceGenerator(name = "transactions_seq", sequenceName = "transactions_seq", allocationSize = 50)
     private Long id;
 
     // Employee performing the transaction
@@ -81,6 +86,11 @@ public class Transaction {
     @Column(name = "completed_at")
     private LocalDateTime completedAt;
 
+    // Client-supplied Idempotency-Key; a retried request finds its trade instead of repeating it
+    @JsonIgnore
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+
     @OneToMany(mappedBy = "transaction", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private List<InventoryMovement> inventoryMovements;
 
@@ -195,10 +205,14 @@ public class Transaction {
     public void setDescription(String description) { this.description = description; }
 
     public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
 
     public LocalDateTime getCompletedAt() { return completedAt; }
     public void setCompletedAt(LocalDateTime completedAt) { this.completedAt = completedAt; }
 
+    public String getIdempotencyKey() { return idempotencyKey; }
+    public void setIdempotencyKey(String idempotencyKey) { this.idempotencyKey = idempotencyKey; }
+
     public List<InventoryMovement> getInventoryMovements() { return inventoryMovements; }
     public void setInventoryMovements(List<InventoryMovement> inventoryMovements) { this.inventoryMovements = inventoryMovements; }
 
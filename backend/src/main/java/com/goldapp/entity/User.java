@@ -60,6 +60,10 @@ public class User implements UserDetails {
     
     private boolean enabled = true;
     
+    // Bumped on password, role or status change; tokens carrying an older value are rejected
+    @JsonIgnore
+    private Integer tokenVersion = 0;
+    
     @Column(updatable = false)
     private LocalDateTime createdAt;
     
@@ -158,6 +162,9 @@ public class User implements UserDetails {
     
     public void setEnabled(boolean enabled) { this.enabled = enabled; }
     
+    public int getTokenVersion() { return tokenVersion != null ? tokenVersion : 0; }
+    public void setTokenVersion(int tokenVersion) { this.tokenVersion = tokenVersion; }
+    
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     
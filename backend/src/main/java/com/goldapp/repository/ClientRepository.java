@@ -1,10 +1,14 @@
 package com.goldapp.repository;
 
+import com.goldapp.config.HibernateCacheConfig;
 import com.goldapp.entity.Client;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -14,19 +18,14 @@ import java.util.Optional;
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
     
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = HibernateCacheConfig.DIRECTORY_QUERIES)})
     Optional<Client> findByCedula(String cedula);
     
     List<Client> findByActiveTrue();
     
     Page<Client> findByActiveTrue(Pageable pageable);
     
-    @Query("SELECT c FROM Client c WHERE c.active = true AND " +
-           "(LOWER(c.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.cedula) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(c.email) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Client> findBySearchTerm(@Param("search") String search, Pageable pageable);
-    
     List<Client> findByClientType(Client.ClientType clientType);
     
     @Query("SELECT c FROM Client c WHERE c.active = true AND c.city = :city")
@@ -0,0 +1,185 @@
+package com.goldapp.repository;
+
+import com.goldapp.entity.Client;
+import com.goldapp.entity.Provider;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Plain JDBC batches for the client and provider import; callers own the transaction
+@Repository
+public class DirectoryBatchRepository {
+
+    private static final String INSERT_CLIENT_SQL =
+            "INSERT INTO clients (first_name, last_name, cedula, email, phone_number, address, city, province, zip_code, " +
+            "client_type, company_name, tax_id, notes, active, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_CLIENT_SQL =
+            "UPDATE clients SET first_name = ?, last_name = ?, cedula = ?, email = ?, phone_number = ?, address = ?, " +
+            "city = ?, province = ?, zip_code = ?, client_type = ?, company_name = ?, tax_id = ?, notes = ?, " +
+            "updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private static final String INSERT_PROVIDER_SQL =
+            "INSERT INTO providers (first_name, last_name, cedula, email, phone_number, address, city, province, zip_code, " +
+            "provider_type, company_name, tax_id, notes, bank_account, bank_name, active, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_PROVIDER_SQL =
+            "UPDATE providers SET first_name = ?, last_name = ?, cedula = ?, email = ?, phone_number = ?, address = ?, " +
+            "city = ?, province = ?, zip_code = ?, provider_type = ?, company_name = ?, tax_id = ?, notes = ?, " +
+            "bank_account = ?, bank_name = ?, updated_at = ?, version = version + 1 WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public DirectoryBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public enum Table {
+        CLIENTS("clients"),
+        PROVIDERS("providers");
+
+        private final String name;
+
+        Table(String name) {
+            this.name = name;
+        }
+    }
+
+    // cedula -> id for the cedulas that already exist
+    // An update leaves active alone, so the stored flag is what the row still has afterwards
+    public record Existing(Long id, boolean active) {}
+
+    public Map<String, Existing> findExistingByCedula(Table table, Collection<String> cedulas) {
+        Map<String, Existing> existing = new HashMap<>();
+        if (cedulas.isEmpty()) {
+            return existing;
+        }
+        jdbcTemplate.query("SELECT cedula, id, active FROM " + table.name + " WHERE cedula IN (" + placeholders(cedulas.size()) + ")",
+                rs -> {
+                    existing.put(rs.getString(1), new Existing(rs.getLong(2), rs.getBoolean(3)));
+                },
+                cedulas.toArray());
+        return existing;
+    }
+
+    // email -> cedula of the row that already uses it
+    public Map<String, String> findCedulasByEmail(Table table, Collection<String> emails) {
+        Map<String, String> cedulas = new HashMap<>();
+        if (emails.isEmpty()) {
+            return cedulas;
+        }
+        jdbcTemplate.query("SELECT email, cedula FROM " + table.name + " WHERE email IN (" + placeholders(emails.size()) + ")",
+                rs -> {
+                    cedulas.put(rs.getString(1), rs.getString(2));
+                },
+                emails.toArray());
+        return cedulas;
+    }
+
+    // Inserts all rows in one batch and writes the generated ids back
+    public void insertClients(List<Client> clients, LocalDateTime now) {
+        insertReturningIds(INSERT_CLIENT_SQL, clients, (ps, client) -> {
+            setStrings(ps, client.getFirstName(), client.getLastName(), client.getCedula(), client.getEmail(),
+                    client.getPhoneNumber(), client.getAddress(), client.getCity(), client.getProvince(),
+                    client.getZipCode(), client.getClientType().name(), client.getCompanyName(), client.getTaxId(),
+                    client.getNotes());
+            ps.setBoolean(14, true);
+            ps.setTimestamp(15, Timestamp.valueOf(now));
+            ps.setTimestamp(16, Timestamp.valueOf(now));
+        }, Client::setId);
+    }
+
+    public void updateClients(List<Client> clients, LocalDateTime now) {
+        if (clients.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_CLIENT_SQL, clients, clients.size(), (ps, client) -> {
+            setStrings(ps, client.getFirstName(), client.getLastName(), client.getCedula(), client.getEmail(),
+                    client.getPhoneNumber(), client.getAddress(), client.getCity(), client.getProvince(),
+                    client.getZipCode(), client.getClientType().name(), client.getCompanyName(), client.getTaxId(),
+                    client.getNotes());
+            ps.setTimestamp(14, Timestamp.valueOf(now));
+            ps.setLong(15, client.getId());
+        });
+    }
+
+    public void insertProviders(List<Provider> providers, LocalDateTime now) {
+        insertReturningIds(INSERT_PROVIDER_SQL, providers, (ps, provider) -> {
+            setStrings(ps, provider.getFirstName(), provider.getLastName(), provider.getCedula(), provider.getEmail(),
+                    provider.getPhoneNumber(), provider.getAddress(), provider.getCity(), provider.getProvince(),
+                    provider.getZipCode(), provider.getProviderType().name(), provider.getCompanyName(),
+                    provider.getTaxId(), provider.getNotes());
+            ps.setString(14, provider.getBankAccount());
+            ps.setString(15, provider.getBankName());
+            ps.setBoolean(16, true);
+            ps.setTimestamp(17, Timestamp.valueOf(now));
+            ps.setTimestamp(18, Timestamp.valueOf(now));
+        }, Provider::setId);
+    }
+
+    public void updateProviders(List<Provider> providers, LocalDateTime now) {
+        if (providers.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_PROVIDER_SQL, providers, providers.size(), (ps, provider) -> {
+            setStrings(ps, provider.getFirstName(), provider.getLastName(), provider.getCedula(), provider.getEmail(),
+                    provider.getPhoneNumber(), provider.getAddress(), provider.getCity(), provider.getProvince(),
+                    provider.getZipCode(), provider.getProviderType().name(), provider.getCompanyName(),
+                    provider.getTaxId(), provider.getNotes());
+            ps.setString(14, provider.getBankAccount());
+            ps.setString(15, provider.getBankName());
+            ps.setTimestamp(16, Timestamp.valueOf(now));
+            ps.setLong(17, provider.getId());
+        });
+    }
+
+    private interface RowSetter<T> {
+        void set(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    private <T> void insertReturningIds(String sql, List<T> rows, RowSetter<T> setter, BiConsumer<T, Long> idSetter) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(sql, new String[] {"id"})) {
+                for (T row : rows) {
+                    setter.set(ps, row);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < rows.size()) {
+                        idSetter.accept(rows.get(i++), keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+
+    private static void setStrings(PreparedStatement ps, String... values) throws SQLException {
+        for (int i = 0; i < values.length; i++) {
+            ps.setString(i + 1, values[i]);
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,67 @@
+package com.goldapp.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+// Forward-only, read-only cursors for the export endpoints. Callers must hold a
+// transaction: PostgreSQL only honours the fetch size when autocommit is off.
+@Repository
+public class ExportRepository {
+
+    private static final String TRANSACTIONS_SQL =
+            "SELECT id, type, gold_carat, gold_amount, price_per_gram, total_amount, status, description, " +
+            "created_at, completed_at, client_id, provider_id " +
+            "FROM transactions WHERE user_id = ? AND created_at BETWEEN ? AND ? ORDER BY created_at, id";
+
+    private static final String INVOICES_SQL =
+            "SELECT id, invoice_number, invoice_type, status, transaction_id, client_id, provider_id, customer_tax_id, " +
+            "subtotal, tax_rate, tax_amount, total, currency, payment_method, issue_date, due_date, paid_date " +
+            "FROM invoices WHERE issue_date BETWEEN ? AND ? ORDER BY issue_date, id";
+
+    private static final String INVENTORY_MOVEMENTS_SQL =
+            "SELECT im.id, im.inventory_id, gi.carat, im.movement_type, im.quantity, im.price_per_gram, " +
+            "im.balance_after, im.transaction_id, im.reason, im.created_at " +
+            "FROM inventory_movements im JOIN gold_inventory gi ON gi.id = im.inventory_id " +
+            "WHERE im.created_at BETWEEN ? AND ? ORDER BY im.created_at, im.id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public ExportRepository(JdbcTemplate jdbcTemplate,
+                            @Value("${app.export.fetchSize:500}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    public <T> T streamTransactions(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                                    ResultSetExtractor<T> extractor) {
+        return stream(TRANSACTIONS_SQL, extractor, userId, Timestamp.valueOf(startDate), Timestamp.valueOf(endDate));
+    }
+
+    public <T> T streamInvoices(LocalDateTime startDate, LocalDateTime endDate, ResultSetExtractor<T> extractor) {
+        return stream(INVOICES_SQL, extractor, Timestamp.valueOf(startDate), Timestamp.valueOf(endDate));
+    }
+
+    public <T> T streamInventoryMovements(LocalDateTime startDate, LocalDateTime endDate,
+                                          ResultSetExtractor<T> extractor) {
+        return stream(INVENTORY_MOVEMENTS_SQL, extractor, Timestamp.valueOf(startDate), Timestamp.valueOf(endDate));
+    }
+
+    private <T> T stream(String sql, ResultSetExtractor<T> extractor, Object... args) {
+        return jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        }, extractor);
+    }
+}
@@ -1,8 +1,13 @@
 package com.goldapp.repository;
 
+import com.goldapp.config.HibernateCacheConfig;
 import com.goldapp.entity.GoldInventory;
+import com.goldapp.service.InventoryItemSummary;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -13,6 +18,8 @@ import java.util.Optional;
 @Repository
 public interface GoldInventoryRepository extends JpaRepository<GoldInventory, Long> {
     
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = HibernateCacheConfig.INVENTORY_QUERIES)})
     Optional<GoldInventory> findByCarat(Integer carat);
     
     List<GoldInventory> findAllByOrderByCaratAsc();
@@ -36,4 +43,14 @@ public interface GoldInventoryRepository extends JpaRepository<GoldInventory, Lo
     List<GoldInventory> findByCaratIn(@Param("carats") List<Integer> carats);
     
     boolean existsByCarat(Integer carat);
+    
+    // Summaries leave the movements collection unloaded
+    @Query(InventoryItemSummary.SELECT + "ORDER BY gi.carat")
+    List<InventoryItemSummary> findAllSummaries();
+    
+    @Query(InventoryItemSummary.SELECT + "WHERE gi.quantityInGrams <= gi.minimumStock ORDER BY gi.carat")
+    List<InventoryItemSummary> findLowStockSummaries();
+    
+    @Query(InventoryItemSummary.SELECT + "WHERE gi.quantityInGrams > gi.maximumStock ORDER BY gi.carat")
+    List<InventoryItemSummary> findOverStockSummaries();
 }
\ No newline at end of file
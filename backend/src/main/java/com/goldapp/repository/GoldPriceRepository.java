@@ -2,6 +2,7 @@ package com.goldapp.repository;
 
 import com.goldapp.entity.GoldPrice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -9,9 +10,10 @@ import java.util.Optional;
 
 @Repository
 public interface GoldPriceRepository extends JpaRepository<GoldPrice, Long> {
-    
-    @Query("SELECT gp FROM GoldPrice gp WHERE gp.isActive = true ORDER BY gp.timestamp DESC")
-    Optional<GoldPrice> findLatestActivePrice();
-    
+
     Optional<GoldPrice> findFirstByIsActiveTrueOrderByTimestampDesc();
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("UPDATE GoldPrice gp SET gp.isActive = false WHERE gp.isActive = true")
+    int deactivateActivePrices();
+}
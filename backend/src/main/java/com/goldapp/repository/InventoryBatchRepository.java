@@ -0,0 +1,113 @@
+package com.goldapp.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+// Plain JDBC batches for the inventory write-behind; callers own the transaction
+@Repository
+public class InventoryBatchRepository {
+
+    private static final String INSERT_MOVEMENT_SQL =
+            "INSERT INTO inventory_movements (inventory_id, transaction_id, movement_type, quantity, price_per_gram, " +
+            "balance_after, reason, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Relative to the row's current values, so an entry retried after later ones still adds
+    // up. Purchased grams are blended into the average at their cost; other changes leave it as is.
+    private static final String UPDATE_STOCK_SQL =
+            "UPDATE gold_inventory SET quantity_in_grams = quantity_in_grams + CAST(? AS DECIMAL(19,6)), " +
+            "average_buy_price = CASE WHEN CAST(? AS DECIMAL(19,6)) > 0 " +
+            "THEN CAST((quantity_in_grams * average_buy_price + CAST(? AS DECIMAL(38,8))) " +
+            "/ (quantity_in_grams + CAST(? AS DECIMAL(19,6))) AS DECIMAL(19,2)) " +
+            "ELSE average_buy_price END, last_updated = ? WHERE id = ?";
+
+    // Arbitrary key held by the one node running the inventory book
+    private static final long BOOK_LOCK_KEY = 0x696e76626f6f6bL;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InventoryBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record MovementRow(Long inventoryId,
+                              Long transactionId,
+                              String movementType,
+                              BigDecimal quantity,
+                              BigDecimal pricePerGram,
+                              BigDecimal balanceAfter,
+                              String reason,
+                              LocalDateTime createdAt) {}
+
+    // quantity is signed; purchasedGrams and purchasedValue are zero unless it is a purchase
+    public record StockDelta(Long inventoryId, BigDecimal quantity, BigDecimal purchasedGrams,
+                             BigDecimal purchasedValue, LocalDateTime updatedAt) {}
+
+    public void insertMovements(List<MovementRow> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_MOVEMENT_SQL, movements, movements.size(), (ps, movement) -> {
+            ps.setLong(1, movement.inventoryId());
+            if (movement.transactionId() != null) {
+                ps.setLong(2, movement.transactionId());
+            } else {
+                ps.setNull(2, Types.BIGINT);
+            }
+            ps.setString(3, movement.movementType());
+            ps.setBigDecimal(4, movement.quantity());
+            ps.setBigDecimal(5, movement.pricePerGram());
+            ps.setBigDecimal(6, movement.balanceAfter());
+            ps.setString(7, movement.reason());
+            ps.setTimestamp(8, Timestamp.valueOf(movement.createdAt()));
+        });
+    }
+
+    // Session-level lock, held for as long as the returned connection stays open. Fails when
+    // another node holds it. Null on H2, which only runs in-process.
+    public Connection lockBook() throws SQLException {
+        Connection connection = jdbcTemplate.getDataSource().getConnection();
+        try {
+            if (!"PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName())) {
+                connection.close();
+                return null;
+            }
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                statement.setLong(1, BOOK_LOCK_KEY);
+                try (ResultSet rs = statement.executeQuery()) {
+                    if (!rs.next() || !rs.getBoolean(1)) {
+                        throw new IllegalStateException("Another node is running the inventory book");
+                    }
+                }
+            }
+            return connection;
+        } catch (SQLException | RuntimeException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    public void updateStock(Collection<StockDelta> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(UPDATE_STOCK_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setBigDecimal(1, delta.quantity());
+            ps.setBigDecimal(2, delta.purchasedGrams());
+            ps.setBigDecimal(3, delta.purchasedValue());
+            ps.setBigDecimal(4, delta.purchasedGrams());
+            ps.setTimestamp(5, Timestamp.valueOf(delta.updatedAt()));
+            ps.setLong(6, delta.inventoryId());
+        });
+    }
+}
@@ -0,0 +1,33 @@
+package com.goldapp.repository;
+
+import com.goldapp.entity.InventoryDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface InventoryDailyRollupRepository extends JpaRepository<InventoryDailyRollup, Long> {
+    
+    List<InventoryDailyRollup> findByRollupDateBetweenOrderByRollupDateAscCaratAsc(LocalDate startDate, LocalDate endDate);
+    
+    List<InventoryDailyRollup> findByRollupDateOrderByCaratAsc(LocalDate rollupDate);
+    
+    // One-off backfill from the inventory_movements table
+    @Modifying
+    @Query(value = "INSERT INTO inventory_daily_rollups (rollup_date, carat, movement_count, quantity_in, quantity_out, value_in, value_out) " +
+                   "SELECT CAST(im.created_at AS DATE), gi.carat, COUNT(*), " +
+                   "COALESCE(SUM(CASE WHEN im.movement_type IN ('IN', 'ADJUSTMENT_IN') THEN im.quantity ELSE 0 END), 0), " +
+                   "COALESCE(SUM(CASE WHEN im.movement_type IN ('OUT', 'ADJUSTMENT_OUT') THEN im.quantity ELSE 0 END), 0), " +
+                   "COALESCE(SUM(CASE WHEN im.movement_type IN ('IN', 'ADJUSTMENT_IN') THEN im.quantity * COALESCE(im.price_per_gram, 0) ELSE 0 END), 0), " +
+                   "COALESCE(SUM(CASE WHEN im.movement_type IN ('OUT', 'ADJUSTMENT_OUT') THEN im.quantity * COALESCE(im.price_per_gram, 0) ELSE 0 END), 0) " +
+                   "FROM inventory_movements im JOIN gold_inventory gi ON gi.id = im.inventory_id " +
+                   "WHERE im.created_at IS NOT NULL " +
+                   "GROUP BY CAST(im.created_at AS DATE), gi.carat",
+           nativeQuery = true)
+    int rebuildFromMovements();
+}
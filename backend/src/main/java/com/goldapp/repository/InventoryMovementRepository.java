@@ -3,6 +3,7 @@ package com.goldapp.repository;
 import com.goldapp.entity.InventoryMovement;
 import com.goldapp.entity.GoldInventory;
 import com.goldapp.entity.Transaction;
+import com.goldapp.service.MovementSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -34,6 +35,22 @@ public interface InventoryMovementRepository extends JpaRepository<InventoryMove
     @Query("SELECT im FROM InventoryMovement im WHERE im.movementType IN :types ORDER BY im.createdAt DESC")
     List<InventoryMovement> findByMovementTypes(@Param("types") List<InventoryMovement.MovementType> types);
     
-    @Query("SELECT im FROM InventoryMovement im ORDER BY im.createdAt DESC")
-    Page<InventoryMovement> findAllOrderByCreatedAtDesc(Pageable pageable);
+    // Keyset pages: callers pass PageRequest.of(0, n) as a row limit; no count query runs
+    @Query(MovementSummary.SELECT + "ORDER BY im.createdAt DESC, im.id DESC")
+    List<MovementSummary> findFirstPage(Pageable limit);
+    
+    @Query(MovementSummary.SELECT + "WHERE " +
+           "im.createdAt < :createdAt OR (im.createdAt = :createdAt AND im.id < :id) " +
+           "ORDER BY im.createdAt DESC, im.id DESC")
+    List<MovementSummary> findPageAfter(@Param("createdAt") LocalDateTime createdAt,
+                                        @Param("id") Long id,
+                                        Pageable limit);
+    
+    @Query(value = MovementSummary.SELECT + "ORDER BY im.createdAt DESC, im.id DESC",
+           countQuery = "SELECT COUNT(im) FROM InventoryMovement im")
+    Page<MovementSummary> findSummaries(Pageable pageable);
+    
+    @Query(value = MovementSummary.SELECT + "WHERE gi.id = :inventoryId ORDER BY im.createdAt DESC, im.id DESC",
+           countQuery = "SELECT COUNT(im) FROM InventoryMovement im WHERE im.inventory.id = :inventoryId")
+    Page<MovementSummary> findSummariesByInventoryId(@Param("inventoryId") Long inventoryId, Pageable pageable);
 }
\ No newline at end of file
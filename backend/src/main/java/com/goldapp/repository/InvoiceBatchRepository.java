@@ -0,0 +1,207 @@
+package com.goldapp.repository;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Plain JDBC batches for the invoice generator: outbox claims and outcomes, and
+// invoices with their items. Callers own the transaction.
+@Repository
+public class InvoiceBatchRepository {
+
+    private static final String CLAIM_SQL =
+            "UPDATE invoice_outbox SET attempts = attempts + 1, next_attempt_at = ? " +
+            "WHERE id = ? AND status = 'PENDING' AND next_attempt_at <= ?";
+
+    // Outcomes only land while the claim is still the latest: a re-claim bumps attempts
+    private static final String COMPLETE_SQL =
+            "UPDATE invoice_outbox SET status = 'DONE', last_error = NULL, processed_at = ? " +
+            "WHERE id = ? AND status = 'PENDING' AND attempts = ?";
+
+    private static final String RESCHEDULE_SQL =
+            "UPDATE invoice_outbox SET status = ?, next_attempt_at = ?, last_error = ? " +
+            "WHERE id = ? AND status = 'PENDING' AND attempts = ?";
+
+    private static final String INSERT_INVOICE_SQL =
+            "INSERT INTO invoices (invoice_number, client_id, provider_id, transaction_id, invoice_type, subtotal, " +
+            "tax_rate, tax_amount, total, currency, status, legal_terms, customer_tax_id, customer_address, " +
+            "issue_date, due_date) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO invoice_items (invoice_id, description, quantity, unit_price, total, gold_carat) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public InvoiceBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record InvoiceRow(String invoiceNumber,
+                             Long clientId,
+                             Long providerId,
+                             Long transactionId,
+                             String invoiceType,
+                             BigDecimal subtotal,
+                             BigDecimal taxRate,
+                             BigDecimal taxAmount,
+                             BigDecimal total,
+                             String currency,
+                             String status,
+                             String legalTerms,
+                             String customerTaxId,
+                             String customerAddress,
+                             LocalDateTime issueDate,
+                             LocalDateTime dueDate,
+                             List<ItemRow> items) {}
+
+    public record ItemRow(String description, BigDecimal quantity, BigDecimal unitPrice, BigDecimal total, Integer goldCarat) {}
+
+    // An outbox row as claimed: attempts is the value the claim set
+    public record Lease(Long outboxId, int attempts) {}
+
+    // Conditional update per row, so two nodes never both win the same entry
+    public List<Long> claim(List<Long> ids, LocalDateTime now, LocalDateTime leaseUntil) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        int[] counts = jdbcTemplate.batchUpdate(CLAIM_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setTimestamp(1, Timestamp.valueOf(leaseUntil));
+                ps.setLong(2, ids.get(i));
+                ps.setTimestamp(3, Timestamp.valueOf(now));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return ids.size();
+            }
+        });
+        List<Long> claimed = new ArrayList<>(ids.size());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                claimed.add(ids.get(i));
+            }
+        }
+        return claimed;
+    }
+
+    // Returns the rows completed; the others were claimed again since
+    public List<Long> complete(List<Lease> leases, LocalDateTime processedAt) {
+        if (leases.isEmpty()) {
+            return List.of();
+        }
+        int[][] counts = jdbcTemplate.batchUpdate(COMPLETE_SQL, leases, leases.size(), (ps, lease) -> {
+            ps.setTimestamp(1, Timestamp.valueOf(processedAt));
+            ps.setLong(2, lease.outboxId());
+            ps.setInt(3, lease.attempts());
+        });
+        List<Long> completed = new ArrayList<>(leases.size());
+        for (int i = 0; i < leases.size(); i++) {
+            if (counts[0][i] > 0) {
+                completed.add(leases.get(i).outboxId());
+            }
+        }
+        return completed;
+    }
+
+    // A no-op when the row was claimed again since
+    public void reschedule(Lease lease, String status, LocalDateTime nextAttemptAt, String lastError) {
+        jdbcTemplate.update(RESCHEDULE_SQL, status, Timestamp.valueOf(nextAttemptAt), lastError,
+                lease.outboxId(), lease.attempts());
+    }
+
+    public List<Long> findInvoicedTransactionIds(Collection<Long> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return List.of();
+        }
+        return jdbcTemplate.queryForList("SELECT transaction_id FROM invoices WHERE transaction_id IN (" +
+                placeholders(transactionIds.size()) + ")", Long.class, transactionIds.toArray());
+    }
+
+    // Inserts the invoices, then their items under the ids the database assigned
+    public void insertInvoices(List<InvoiceRow> invoices) {
+        if (invoices.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_INVOICE_SQL, invoices, invoices.size(), (ps, row) -> {
+            ps.setString(1, row.invoiceNumber());
+            setNullableLong(ps, 2, row.clientId());
+            setNullableLong(ps, 3, row.providerId());
+            ps.setLong(4, row.transactionId());
+            ps.setString(5, row.invoiceType());
+            ps.setBigDecimal(6, row.subtotal());
+            ps.setBigDecimal(7, row.taxRate());
+            ps.setBigDecimal(8, row.taxAmount());
+            ps.setBigDecimal(9, row.total());
+            ps.setString(10, row.currency());
+            ps.setString(11, row.status());
+            ps.setString(12, row.legalTerms());
+            ps.setString(13, row.customerTaxId());
+            ps.setString(14, row.customerAddress());
+            ps.setTimestamp(15, Timestamp.valueOf(row.issueDate()));
+            ps.setTimestamp(16, Timestamp.valueOf(row.dueDate()));
+        });
+
+        Map<String, Long> ids = findIdsByInvoiceNumber(invoices.stream().map(InvoiceRow::invoiceNumber).toList());
+        List<Map.Entry<Long, ItemRow>> items = new ArrayList<>();
+        for (InvoiceRow invoice : invoices) {
+            Long invoiceId = ids.get(invoice.invoiceNumber());
+            for (ItemRow item : invoice.items()) {
+                items.add(Map.entry(invoiceId, item));
+            }
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, items, items.size(), (ps, entry) -> {
+            ItemRow item = entry.getValue();
+            ps.setLong(1, entry.getKey());
+            ps.setString(2, item.description());
+            ps.setBigDecimal(3, item.quantity());
+            ps.setBigDecimal(4, item.unitPrice());
+            ps.setBigDecimal(5, item.total());
+            if (item.goldCarat() != null) {
+                ps.setInt(6, item.goldCarat());
+            } else {
+                ps.setNull(6, Types.INTEGER);
+            }
+        });
+    }
+
+    private Map<String, Long> findIdsByInvoiceNumber(List<String> invoiceNumbers) {
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT invoice_number, id FROM invoices WHERE invoice_number IN (" +
+                        placeholders(invoiceNumbers.size()) + ")",
+                rs -> {
+                    ids.put(rs.getString(1), rs.getLong(2));
+                }, invoiceNumbers.toArray());
+        return ids;
+    }
+
+    private static void setNullableLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
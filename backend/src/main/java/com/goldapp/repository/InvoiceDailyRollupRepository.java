@@ -0,0 +1,45 @@
+package com.goldapp.repository;
+
+import com.goldapp.entity.Invoice;
+import com.goldapp.entity.InvoiceDailyRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface InvoiceDailyRollupRepository extends JpaRepository<InvoiceDailyRollup, Long> {
+    
+    List<InvoiceDailyRollup> findByRollupDateBetweenOrderByRollupDateAsc(LocalDate startDate, LocalDate endDate);
+    
+    boolean existsByRollupDate(LocalDate rollupDate);
+    
+    // Reads the running-total row, so the cost does not grow with the number of days
+    @Query("SELECT COALESCE(MAX(r.totalAmount), 0) FROM InvoiceDailyRollup r " +
+           "WHERE r.rollupDate = :totalDate AND r.invoiceType = :type AND r.status = :status")
+    BigDecimal getRunningTotal(@Param("totalDate") LocalDate totalDate,
+                               @Param("type") Invoice.InvoiceType type,
+                               @Param("status") Invoice.InvoiceStatus status);
+    
+    // One-off backfill from the invoices table
+    @Modifying
+    @Query(value = "INSERT INTO invoice_daily_rollups (rollup_date, invoice_type, status, invoice_count, total_amount) " +
+                   "SELECT CAST(issue_date AS DATE), invoice_type, status, COUNT(*), COALESCE(SUM(total), 0) FROM invoices " +
+                   "WHERE issue_date IS NOT NULL AND invoice_type IS NOT NULL AND status IS NOT NULL " +
+                   "GROUP BY CAST(issue_date AS DATE), invoice_type, status",
+           nativeQuery = true)
+    int rebuildFromInvoices();
+    
+    // Running-total rows summed from the daily rows
+    @Modifying
+    @Query(value = "INSERT INTO invoice_daily_rollups (rollup_date, invoice_type, status, invoice_count, total_amount) " +
+                   "SELECT :totalDate, invoice_type, status, SUM(invoice_count), SUM(total_amount) FROM invoice_daily_rollups " +
+                   "WHERE rollup_date <> :totalDate GROUP BY invoice_type, status",
+           nativeQuery = true)
+    int rebuildRunningTotals(@Param("totalDate") LocalDate totalDate);
+}
@@ -0,0 +1,27 @@
+package com.goldapp.repository;
+
+import com.goldapp.entity.InvoiceNumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface InvoiceNumberSequenceRepository extends JpaRepository<InvoiceNumberSequence, String> {
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM InvoiceNumberSequence s WHERE s.period = :period")
+    Optional<InvoiceNumberSequence> findForUpdate(@Param("period") String period);
+    
+    // Hands back the unused tail of a block, unless another node has reserved past it since
+    @Modifying
+    @Query("UPDATE InvoiceNumberSequence s SET s.nextValue = :unusedFrom WHERE s.period = :period AND s.nextValue = :reservedTo")
+    int release(@Param("period") String period,
+                @Param("unusedFrom") long unusedFrom,
+                @Param("reservedTo") long reservedTo);
+}
@@ -0,0 +1,20 @@
+package com.goldapp.repository;
+
+import com.goldapp.entity.InvoiceOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface InvoiceOutboxRepository extends JpaRepository<InvoiceOutboxEntry, Long> {
+
+    // Oldest first; rows claimed by a worker have nextAttemptAt in the future
+    @Query("SELECT e FROM InvoiceOutboxEntry e WHERE e.status = 'PENDING' " +
+           "AND e.nextAttemptAt <= :now ORDER BY e.nextAttemptAt, e.id")
+    List<InvoiceOutboxEntry> findDue(@Param("now") LocalDateTime now, Pageable pageable);
+}
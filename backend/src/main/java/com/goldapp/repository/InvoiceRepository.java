@@ -3,6 +3,7 @@ package com.goldapp.repository;
 import com.goldapp.entity.Invoice;
 import com.goldapp.entity.Client;
 import com.goldapp.entity.Provider;
+import com.goldapp.service.InvoiceSummary;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -40,6 +41,10 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     List<Invoice> findOverdueInvoices(@Param("status") Invoice.InvoiceStatus status, 
                                       @Param("currentDate") LocalDateTime currentDate);
     
+    @Query("SELECT COUNT(i) FROM Invoice i WHERE i.status = :status AND i.dueDate < :currentDate")
+    long countOverdueInvoices(@Param("status") Invoice.InvoiceStatus status, 
+                              @Param("currentDate") LocalDateTime currentDate);
+    
     @Query("SELECT SUM(i.total) FROM Invoice i WHERE i.invoiceType = :type AND i.status = :status")
     BigDecimal getTotalAmountByTypeAndStatus(@Param("type") Invoice.InvoiceType type, 
                                            @Param("status") Invoice.InvoiceStatus status);
@@ -48,5 +53,42 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     Long countInvoicesByDateRange(@Param("startDate") LocalDateTime startDate, 
                                   @Param("endDate") LocalDateTime endDate);
     
+    // Numbers are zero-padded, so the lexical maximum is the highest sequence
+    @Query("SELECT MAX(i.invoiceNumber) FROM Invoice i WHERE i.invoiceNumber LIKE :prefix")
+    String findMaxInvoiceNumberLike(@Param("prefix") String prefix);
+    
     boolean existsByInvoiceNumber(String invoiceNumber);
+    
+    // --- Read side: flat summaries, one statement per list or page ---
+    
+    @Query(InvoiceSummary.SELECT + "WHERE i.status = :status ORDER BY i.issueDate DESC")
+    List<InvoiceSummary> findSummariesByStatus(@Param("status") Invoice.InvoiceStatus status);
+    
+    @Query(InvoiceSummary.SELECT + "WHERE i.invoiceType = :type ORDER BY i.issueDate DESC")
+    List<InvoiceSummary> findSummariesByType(@Param("type") Invoice.InvoiceType type);
+    
+    @Query(InvoiceSummary.SELECT + "WHERE i.issueDate BETWEEN :startDate AND :endDate ORDER BY i.issueDate DESC")
+    List<InvoiceSummary> findSummariesByDateRange(@Param("startDate") LocalDateTime startDate,
+                                                  @Param("endDate") LocalDateTime endDate);
+    
+    @Query(InvoiceSummary.SELECT + "WHERE i.status = :status AND i.dueDate < :currentDate ORDER BY i.dueDate")
+    List<InvoiceSummary> findOverdueSummaries(@Param("status") Invoice.InvoiceStatus status,
+                                              @Param("currentDate") LocalDateTime currentDate);
+    
+    // Ordered in the query; pass an unsorted Pageable
+    @Query(value = InvoiceSummary.SELECT + "WHERE c.id = :clientId ORDER BY i.issueDate DESC, i.id DESC",
+           countQuery = "SELECT COUNT(i) FROM Invoice i WHERE i.client.id = :clientId")
+    Page<InvoiceSummary> findSummariesByClientId(@Param("clientId") Long clientId, Pageable pageable);
+    
+    @Query(value = InvoiceSummary.SELECT + "WHERE p.id = :providerId ORDER BY i.issueDate DESC, i.id DESC",
+           countQuery = "SELECT COUNT(i) FROM Invoice i WHERE i.provider.id = :providerId")
+    Page<InvoiceSummary> findSummariesByProviderId(@Param("providerId") Long providerId, Pageable pageable);
+    
+    @Query("SELECT DISTINCT i FROM Invoice i LEFT JOIN FETCH i.client LEFT JOIN FETCH i.provider " +
+           "LEFT JOIN FETCH i.items WHERE i.id = :id")
+    Optional<Invoice> findDetailById(@Param("id") Long id);
+    
+    @Query("SELECT DISTINCT i FROM Invoice i LEFT JOIN FETCH i.client LEFT JOIN FETCH i.provider " +
+           "LEFT JOIN FETCH i.items WHERE i.invoiceNumber = :invoiceNumber")
+    Optional<Invoice> findDetailByInvoiceNumber(@Param("invoiceNumber") String invoiceNumber);
 }
\ No newline at end of file
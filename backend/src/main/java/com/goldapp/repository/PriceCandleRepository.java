@@ -0,0 +1,15 @@
+package com.goldapp.repository;
+
+import com.goldapp.entity.PriceCandle;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PriceCandleRepository extends JpaRepository<PriceCandle, Long> {
+
+    List<PriceCandle> findByResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+            PriceCandle.Resolution resolution, LocalDateTime from, LocalDateTime to);
+}
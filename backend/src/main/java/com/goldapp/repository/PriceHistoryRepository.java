@@ -0,0 +1,172 @@
+package com.goldapp.repository;
+
+import com.goldapp.entity.PriceCandle;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Append-only price ticks and candle rewrites over plain JDBC. On PostgreSQL
+// price_ticks is range-partitioned by day, so old days are dropped whole instead
+// of deleted row by row; other databases get a plain table from their schema script.
+@Repository
+public class PriceHistoryRepository {
+
+    public static final String TICK_TABLE = "price_ticks";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private static final String INSERT_TICK_SQL =
+            "INSERT INTO price_ticks (tick_time, buy_price, sell_price, price_id) VALUES (?, ?, ?, ?)";
+
+    private static final String INSERT_CANDLE_SQL =
+            "INSERT INTO price_candles (resolution, bucket_start, open, high, low, close, close_sell, tick_count) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public PriceHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record TickRow(LocalDateTime tickTime, BigDecimal buyPrice, BigDecimal sellPrice) {}
+
+    public record CandleRow(LocalDateTime bucketStart,
+                            BigDecimal open,
+                            BigDecimal high,
+                            BigDecimal low,
+                            BigDecimal close,
+                            BigDecimal closeSell,
+                            long tickCount) {}
+
+    public boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+
+    public void insertTick(LocalDateTime tickTime, BigDecimal buyPrice, BigDecimal sellPrice, Long priceId) {
+        jdbcTemplate.update(INSERT_TICK_SQL, ps -> {
+            ps.setTimestamp(1, Timestamp.valueOf(tickTime));
+            ps.setBigDecimal(2, buyPrice);
+            ps.setBigDecimal(3, sellPrice);
+            if (priceId != null) {
+                ps.setLong(4, priceId);
+            } else {
+                ps.setNull(4, Types.BIGINT);
+            }
+        });
+    }
+
+    // Seeds the tick table from the price rows written before it existed
+    public int copyTicksFromGoldPrices() {
+        return jdbcTemplate.update(
+                "INSERT INTO price_ticks (tick_time, buy_price, sell_price, price_id) " +
+                "SELECT timestamp, buy_price, sell_price, id FROM gold_prices WHERE timestamp IS NOT NULL");
+    }
+
+    public LocalDateTime findEarliestTickTime() {
+        Timestamp earliest = jdbcTemplate.queryForObject("SELECT MIN(tick_time) FROM price_ticks", Timestamp.class);
+        return earliest != null ? earliest.toLocalDateTime() : null;
+    }
+
+    public void forEachTick(LocalDateTime from, LocalDateTime to, Consumer<TickRow> consumer) {
+        jdbcTemplate.query(
+                "SELECT tick_time, buy_price, sell_price FROM price_ticks " +
+                "WHERE tick_time >= ? AND tick_time < ? ORDER BY tick_time",
+                rs -> {
+                    consumer.accept(new TickRow(rs.getTimestamp(1).toLocalDateTime(),
+                            rs.getBigDecimal(2), rs.getBigDecimal(3)));
+                },
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    public LocalDateTime findLatestBucket(PriceCandle.Resolution resolution) {
+        Timestamp latest = jdbcTemplate.queryForObject(
+                "SELECT MAX(bucket_start) FROM price_candles WHERE resolution = ?", Timestamp.class, resolution.name());
+        return latest != null ? latest.toLocalDateTime() : null;
+    }
+
+    public LocalDateTime findEarliestBucket(PriceCandle.Resolution resolution) {
+        Timestamp earliest = jdbcTemplate.queryForObject(
+                "SELECT MIN(bucket_start) FROM price_candles WHERE resolution = ?", Timestamp.class, resolution.name());
+        return earliest != null ? earliest.toLocalDateTime() : null;
+    }
+
+    public List<CandleRow> findCandles(PriceCandle.Resolution resolution, LocalDateTime from, LocalDateTime to) {
+        return jdbcTemplate.query(
+                "SELECT bucket_start, open, high, low, close, close_sell, tick_count FROM price_candles " +
+                "WHERE resolution = ? AND bucket_start >= ? AND bucket_start < ? ORDER BY bucket_start",
+                (rs, rowNum) -> new CandleRow(rs.getTimestamp(1).toLocalDateTime(), rs.getBigDecimal(2),
+                        rs.getBigDecimal(3), rs.getBigDecimal(4), rs.getBigDecimal(5), rs.getBigDecimal(6), rs.getLong(7)),
+                resolution.name(), Timestamp.valueOf(from), Timestamp.valueOf(to));
+    }
+
+    // Callers own the transaction, so readers never see the range half rewritten
+    public void replaceCandles(PriceCandle.Resolution resolution, LocalDateTime from, List<CandleRow> candles) {
+        jdbcTemplate.update("DELETE FROM price_candles WHERE resolution = ? AND bucket_start >= ?",
+                resolution.name(), Timestamp.valueOf(from));
+        if (candles.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_CANDLE_SQL, candles, candles.size(), (ps, candle) -> {
+            ps.setString(1, resolution.name());
+            ps.setTimestamp(2, Timestamp.valueOf(candle.bucketStart()));
+            ps.setBigDecimal(3, candle.open());
+            ps.setBigDecimal(4, candle.high());
+            ps.setBigDecimal(5, candle.low());
+            ps.setBigDecimal(6, candle.close());
+            ps.setBigDecimal(7, candle.closeSell());
+            ps.setLong(8, candle.tickCount());
+        });
+    }
+
+    // --- PostgreSQL partitions ---
+
+    // Ticks outside every daily partition land in the default one instead of failing
+    public void createPartitionedTickTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS price_ticks (" +
+                "tick_time TIMESTAMP NOT NULL, buy_price DECIMAL(19,2) NOT NULL, sell_price DECIMAL(19,2) NOT NULL, " +
+                "price_id BIGINT) PARTITION BY RANGE (tick_time)");
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS price_ticks_default PARTITION OF price_ticks DEFAULT");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_price_ticks_tick_time ON price_ticks(tick_time)");
+    }
+
+    public void createDailyPartition(LocalDate day) {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + partitionName(day) + " PARTITION OF price_ticks " +
+                "FOR VALUES FROM ('" + day.atStartOfDay() + "') TO ('" + day.plusDays(1).atStartOfDay() + "')");
+    }
+
+    public List<LocalDate> findDailyPartitions() {
+        return jdbcTemplate.queryForList(
+                        "SELECT child.relname FROM pg_inherits i " +
+                        "JOIN pg_class child ON child.oid = i.inhrelid " +
+                        "JOIN pg_class parent ON parent.oid = i.inhparent " +
+                        "WHERE parent.relname = 'price_ticks'", String.class).stream()
+                .filter(name -> name.matches("price_ticks_\\d{8}"))
+                .map(name -> LocalDate.parse(name.substring(TICK_TABLE.length() + 1), PARTITION_SUFFIX))
+                .toList();
+    }
+
+    public void dropDailyPartition(LocalDate day) {
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(day));
+    }
+
+    public int deleteTicksBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM price_ticks WHERE tick_time < ?", Timestamp.valueOf(cutoff));
+    }
+
+    private static String partitionName(LocalDate day) {
+        return TICK_TABLE + "_" + day.format(PARTITION_SUFFIX);
+    }
+}
@@ -1,10 +1,14 @@
 package com.goldapp.repository;
 
+import com.goldapp.config.HibernateCacheConfig;
 import com.goldapp.entity.Provider;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -14,19 +18,14 @@ import java.util.Optional;
 @Repository
 public interface ProviderRepository extends JpaRepository<Provider, Long> {
     
+    @QueryHints({@QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+                @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = HibernateCacheConfig.DIRECTORY_QUERIES)})
     Optional<Provider> findByCedula(String cedula);
     
     List<Provider> findByActiveTrue();
     
     Page<Provider> findByActiveTrue(Pageable pageable);
     
-    @Query("SELECT p FROM Provider p WHERE p.active = true AND " +
-           "(LOWER(p.firstName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(p.lastName) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(p.cedula) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-           "LOWER(p.email) LIKE LOWER(CONCAT('%', :search, '%')))")
-    Page<Provider> findBySearchTerm(@Param("search") String search, Pageable pageable);
-    
     List<Provider> findByProviderType(Provider.ProviderType providerType);
     
     @Query("SELECT p FROM Provider p WHERE p.active = true AND p.city = :city")
@@ -0,0 +1,94 @@
+package com.goldapp.repository;
+
+import com.goldapp.entity.Invoice;
+import com.goldapp.entity.InvoiceDailyRollup;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+
+// Rollup increments as single upserts in the caller's transaction: a row is created on
+// first use and incremented after that. On PostgreSQL this is ON CONFLICT DO UPDATE, so
+// two transactions creating the same row never fail; H2 (dev, single node) uses MERGE.
+@Repository
+public class RollupUpsertRepository {
+
+    private static final String POSTGRES_INVOICE_SQL =
+            "INSERT INTO invoice_daily_rollups AS r (rollup_date, invoice_type, status, invoice_count, total_amount) " +
+            "VALUES (?, ?, ?, ?, ?), (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (rollup_date, invoice_type, status) DO UPDATE SET " +
+            "invoice_count = r.invoice_count + EXCLUDED.invoice_count, total_amount = r.total_amount + EXCLUDED.total_amount";
+
+    private static final String H2_INVOICE_SQL =
+            "MERGE INTO invoice_daily_rollups r USING (VALUES " +
+            "(CAST(? AS DATE), CAST(? AS VARCHAR(20)), CAST(? AS VARCHAR(20)), CAST(? AS BIGINT), CAST(? AS DECIMAL(19,2))), " +
+            "(CAST(? AS DATE), CAST(? AS VARCHAR(20)), CAST(? AS VARCHAR(20)), CAST(? AS BIGINT), CAST(? AS DECIMAL(19,2)))" +
+            ") AS d(rollup_date, invoice_type, status, invoice_count, total_amount) " +
+            "ON r.rollup_date = d.rollup_date AND r.invoice_type = d.invoice_type AND r.status = d.status " +
+            "WHEN MATCHED THEN UPDATE SET " +
+            "invoice_count = r.invoice_count + d.invoice_count, total_amount = r.total_amount + d.total_amount " +
+            "WHEN NOT MATCHED THEN INSERT (rollup_date, invoice_type, status, invoice_count, total_amount) " +
+            "VALUES (d.rollup_date, d.invoice_type, d.status, d.invoice_count, d.total_amount)";
+
+    private static final String POSTGRES_MOVEMENTS_SQL =
+            "INSERT INTO inventory_daily_rollups AS r (rollup_date, carat, movement_count, quantity_in, quantity_out, value_in, value_out) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (rollup_date, carat) DO UPDATE SET " +
+            "movement_count = r.movement_count + EXCLUDED.movement_count, " +
+            "quantity_in = r.quantity_in + EXCLUDED.quantity_in, quantity_out = r.quantity_out + EXCLUDED.quantity_out, " +
+            "value_in = r.value_in + EXCLUDED.value_in, value_out = r.value_out + EXCLUDED.value_out";
+
+    private static final String H2_MOVEMENTS_SQL =
+            "MERGE INTO inventory_daily_rollups r USING (VALUES " +
+            "(CAST(? AS DATE), CAST(? AS INTEGER), CAST(? AS BIGINT), CAST(? AS DECIMAL(19,6)), CAST(? AS DECIMAL(19,6)), " +
+            "CAST(? AS DECIMAL(19,2)), CAST(? AS DECIMAL(19,2)))" +
+            ") AS d(rollup_date, carat, movement_count, quantity_in, quantity_out, value_in, value_out) " +
+            "ON r.rollup_date = d.rollup_date AND r.carat = d.carat " +
+            "WHEN MATCHED THEN UPDATE SET movement_count = r.movement_count + d.movement_count, " +
+            "quantity_in = r.quantity_in + d.quantity_in, quantity_out = r.quantity_out + d.quantity_out, " +
+            "value_in = r.value_in + d.value_in, value_out = r.value_out + d.value_out " +
+            "WHEN NOT MATCHED THEN INSERT (rollup_date, carat, movement_count, quantity_in, quantity_out, value_in, value_out) " +
+            "VALUES (d.rollup_date, d.carat, d.movement_count, d.quantity_in, d.quantity_out, d.value_in, d.value_out)";
+
+    // Arbitrary key shared by every node's backfill
+    private static final long BACKFILL_LOCK_KEY = 0x726f6c6c7570L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean postgres;
+
+    public RollupUpsertRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // The day's row and the all-time row for the type and status, in one statement
+    public void addInvoices(LocalDate day, Invoice.InvoiceType type, Invoice.InvoiceStatus status,
+                            long count, BigDecimal amount) {
+        jdbcTemplate.update(isPostgres() ? POSTGRES_INVOICE_SQL : H2_INVOICE_SQL,
+                Date.valueOf(day), type.name(), status.name(), count, amount,
+                Date.valueOf(InvoiceDailyRollup.RUNNING_TOTAL_DATE), type.name(), status.name(), count, amount);
+    }
+
+    public void addMovements(LocalDate day, int carat, long count, BigDecimal quantityIn, BigDecimal quantityOut,
+                             BigDecimal valueIn, BigDecimal valueOut) {
+        jdbcTemplate.update(isPostgres() ? POSTGRES_MOVEMENTS_SQL : H2_MOVEMENTS_SQL,
+                Date.valueOf(day), carat, count, quantityIn, quantityOut, valueIn, valueOut);
+    }
+
+    // Held until the caller's transaction ends. A no-op on H2, which only runs in-process.
+    public void lockForBackfill() {
+        if (isPostgres()) {
+            jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> {}, BACKFILL_LOCK_KEY);
+        }
+    }
+
+    private boolean isPostgres() {
+        if (postgres == null) {
+            postgres = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equalsIgnoreCase(connection.getMetaData().getDatabaseProductName()));
+        }
+        return postgres;
+    }
+}
@@ -0,0 +1,92 @@
+package com.goldapp.repository;
+
+import com.goldapp.entity.Transaction;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// Plain JDBC batches for the order intake pipeline; callers own the transaction
+@Repository
+public class TradeBatchRepository {
+
+    // Guarded in the WHERE clause so neither side can go negative under concurrency
+    private static final String APPLY_DELTA_SQL =
+            "UPDATE users SET account_balance = account_balance + ?, gold_holdings = gold_holdings + ?, updated_at = ? " +
+            "WHERE id = ? AND account_balance + ? >= 0 AND gold_holdings + ? >= 0";
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO transactions (user_id, type, gold_amount, price_per_gram, total_amount, status, created_at, completed_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TradeBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public record BalanceDelta(Long userId, BigDecimal balanceDelta, BigDecimal goldDelta) {}
+
+    // One trade on its own; false when the guard rejected it or the user does not exist
+    public boolean applyBalanceDelta(BalanceDelta delta, LocalDateTime now) {
+        return jdbcTemplate.update(APPLY_DELTA_SQL, delta.balanceDelta(), delta.goldDelta(), Timestamp.valueOf(now),
+                delta.userId(), delta.balanceDelta(), delta.goldDelta()) != 0;
+    }
+
+    // Statements run in order, so two orders from the same user are guarded one after the other
+    public boolean[] applyBalanceDeltas(List<BalanceDelta> deltas, LocalDateTime now) {
+        if (deltas.isEmpty()) {
+            return new boolean[0];
+        }
+        int[] counts = jdbcTemplate.batchUpdate(APPLY_DELTA_SQL, deltas, deltas.size(), (ps, delta) -> {
+            ps.setBigDecimal(1, delta.balanceDelta());
+            ps.setBigDecimal(2, delta.goldDelta());
+            ps.setTimestamp(3, Timestamp.valueOf(now));
+            ps.setLong(4, delta.userId());
+            ps.setBigDecimal(5, delta.balanceDelta());
+            ps.setBigDecimal(6, delta.goldDelta());
+        })[0];
+
+        boolean[] applied = new boolean[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            applied[i] = counts[i] != 0;
+        }
+        return applied;
+    }
+
+    // Inserts all rows in one batch and writes the generated ids back
+    public void insertTransactions(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_TRANSACTION_SQL, new String[] {"id"})) {
+                for (Transaction tx : transactions) {
+                    ps.setLong(1, tx.getUser().getId());
+                    ps.setString(2, tx.getType().name());
+                    ps.setBigDecimal(3, tx.getGoldAmount());
+                    ps.setBigDecimal(4, tx.getPricePerGram());
+                    ps.setBigDecimal(5, tx.getTotalAmount());
+                    ps.setString(6, tx.getStatus().name());
+                    ps.setTimestamp(7, Timestamp.valueOf(tx.getCreatedAt()));
+                    ps.setTimestamp(8, tx.getCompletedAt() != null ? Timestamp.valueOf(tx.getCompletedAt()) : null);
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                try (ResultSet keys = ps.getGeneratedKeys()) {
+                    int i = 0;
+                    while (keys.next() && i < transactions.size()) {
+                        transactions.get(i++).setId(keys.getLong(1));
+                    }
+                }
+            }
+            return null;
+        });
+    }
+}
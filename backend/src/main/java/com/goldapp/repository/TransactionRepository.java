@@ -10,13 +10,35 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, Long> {
     
     Page<Transaction> findByUserOrderByCreatedAtDesc(User user, Pageable pageable);
     
+    // Keyset pages: callers pass PageRequest.of(0, n) as a row limit; no count query runs
+    @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findFirstPageByUserId(@Param("userId") Long userId, Pageable limit);
+    
+    @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId AND " +
+           "(t.createdAt < :createdAt OR (t.createdAt = :createdAt AND t.id < :id)) " +
+           "ORDER BY t.createdAt DESC, t.id DESC")
+    List<Transaction> findPageByUserIdAfter(@Param("userId") Long userId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable limit);
+    
+    // Trades with the parties their invoices are addressed to, in one statement
+    @Query("SELECT t FROM Transaction t LEFT JOIN FETCH t.client LEFT JOIN FETCH t.provider WHERE t.id IN :ids")
+    List<Transaction> findWithPartiesByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT t FROM Transaction t WHERE t.user.id = :userId AND t.idempotencyKey = :idempotencyKey")
+    Optional<Transaction> findByUserIdAndIdempotencyKey(@Param("userId") Long userId,
+                                                        @Param("idempotencyKey") String idempotencyKey);
+    
     List<Transaction> findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(
             User user, LocalDateTime startDate, LocalDateTime endDate);
     
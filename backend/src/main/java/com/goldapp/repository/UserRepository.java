@@ -21,4 +21,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     
     @Query("SELECT u FROM User u WHERE u.username = :usernameOrEmail OR u.email = :usernameOrEmail")
     Optional<User> findByUsernameOrEmail(@Param("usernameOrEmail") String usernameOrEmail);
-}
\ No newline at end of file
+    
+    @Query("SELECT COALESCE(u.tokenVersion, 0) FROM User u WHERE u.id = :userId AND u.enabled = true")
+    Optional<Integer> findActiveTokenVersion(@Param("userId") Long userId);
+}
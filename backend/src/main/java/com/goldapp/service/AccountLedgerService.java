@@ -0,0 +1,48 @@
+package com.goldapp.service;
+
+import com.goldapp.repository.TradeBatchRepository;
+import com.goldapp.repository.TradeBatchRepository.BalanceDelta;
+import com.goldapp.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Applies the balance and gold side of a trade as one conditional UPDATE (the same
+// statement order intake batches), so a stale principal cannot let concurrent trades
+// overdraw an account
+@Service
+@Transactional
+public class AccountLedgerService {
+
+    private final TradeBatchRepository tradeBatchRepository;
+    private final UserRepository userRepository;
+
+    public AccountLedgerService(TradeBatchRepository tradeBatchRepository, UserRepository userRepository) {
+        this.tradeBatchRepository = tradeBatchRepository;
+        this.userRepository = userRepository;
+    }
+
+    public void debitForPurchase(Long userId, BigDecimal totalAmount, BigDecimal goldAmount) {
+        if (!tradeBatchRepository.applyBalanceDelta(new BalanceDelta(userId, totalAmount.negate(), goldAmount),
+                LocalDateTime.now())) {
+            throw rejected(userId, "Insufficient funds");
+        }
+    }
+
+    public void creditForSale(Long userId, BigDecimal goldAmount, BigDecimal totalAmount) {
+        if (!tradeBatchRepository.applyBalanceDelta(new BalanceDelta(userId, totalAmount, goldAmount.negate()),
+                LocalDateTime.now())) {
+            throw rejected(userId, "Insufficient gold holdings");
+        }
+    }
+
+    private RuntimeException rejected(Long userId, String reason) {
+        // Zero rows means either the guard failed or the user does not exist
+        if (!userRepository.existsById(userId)) {
+            return new RuntimeException("User not found: " + userId);
+        }
+        return new RuntimeException(reason);
+    }
+}
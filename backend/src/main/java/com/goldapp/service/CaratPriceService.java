@@ -1,22 +1,94 @@
 package com.goldapp.service;
 
-import com.goldapp.entity.CaratPrice;
-import com.goldapp.repository.CaratPriceRepository;
-import org.springframework.beans.factory.annotation.Autowired;
+import com.goldapp.service.CaratPriceSnapshot.CaratQuote;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
+// Carat prices derived from the spot price: purity (carat / 24) times the spot buy
+// and sell prices, widened by the configured spreads. Re-derived whenever
+// GoldPriceService publishes a new spot snapshot; readers never touch the database.
 @Service
 public class CaratPriceService {
-    @Autowired
-    private CaratPriceRepository caratPriceRepository;
 
-    public List<CaratPrice> getAllCaratPrices() {
-        return caratPriceRepository.findAllByOrderByCaratAsc();
+    private static final int MONEY_SCALE = 2;
+    private static final int PURITY_SCALE = 6;
+    private static final BigDecimal PURE_CARAT = BigDecimal.valueOf(24);
+
+    private final GoldPriceService goldPriceService;
+    private final PriceStreamService priceStreamService;
+
+    @Value("${app.caratPricing.carats:10,14,18,22,24}")
+    private List<Integer> carats;
+
+    // Fraction added to the buy price and taken off the sell price, e.g. 0.02
+    @Value("${app.caratPricing.buySpread:0.02}")
+    private BigDecimal buySpread;
+
+    @Value("${app.caratPricing.sellSpread:0.02}")
+    private BigDecimal sellSpread;
+
+    private final AtomicReference<CaratPriceSnapshot> currentSnapshot = new AtomicReference<>();
+
+    public CaratPriceService(GoldPriceService goldPriceService, PriceStreamService priceStreamService) {
+        this.goldPriceService = goldPriceService;
+        this.priceStreamService = priceStreamService;
+    }
+
+    public Optional<CaratPriceSnapshot> getSnapshot() {
+        CaratPriceSnapshot snapshot = currentSnapshot.get();
+        if (snapshot == null) {
+            goldPriceService.getCurrentPrice().ifPresent(this::onSpotPrice);
+            snapshot = currentSnapshot.get();
+        }
+        return Optional.ofNullable(snapshot);
+    }
+
+    public List<CaratQuote> getAllCaratPrices() {
+        return getSnapshot().map(CaratPriceSnapshot::prices).orElse(List.of());
+    }
+
+    public Optional<CaratQuote> getCaratPrice(int carat) {
+        return getSnapshot().flatMap(snapshot -> snapshot.quote(carat));
+    }
+
+    @EventListener
+    public void onSpotPrice(GoldPriceSnapshot spot) {
+        while (true) {
+            CaratPriceSnapshot previous = currentSnapshot.get();
+            // Spot ids only grow; an older price arriving late must not win
+            if (previous != null && previous.spotPriceId() != null && spot.id() != null
+                    && spot.id() <= previous.spotPriceId()) {
+                return;
+            }
+            CaratPriceSnapshot next = derive(spot, previous != null ? previous.version() + 1 : 1);
+            if (currentSnapshot.compareAndSet(previous, next)) {
+                priceStreamService.publishCaratPrices(next);
+                return;
+            }
+        }
     }
 
-    public CaratPrice getCaratPrice(int carat) {
-        return caratPriceRepository.findByCarat(carat);
+    private CaratPriceSnapshot derive(GoldPriceSnapshot spot, long version) {
+        BigDecimal buyFactor = BigDecimal.ONE.add(buySpread);
+        BigDecimal sellFactor = BigDecimal.ONE.subtract(sellSpread);
+        List<CaratQuote> quotes = new ArrayList<>(carats.size());
+        for (int carat : carats.stream().sorted().toList()) {
+            BigDecimal purity = BigDecimal.valueOf(carat).divide(PURE_CARAT, PURITY_SCALE, RoundingMode.HALF_UP);
+            quotes.add(new CaratQuote(
+                    carat,
+                    purity,
+                    spot.buyPrice().multiply(purity).multiply(buyFactor).setScale(MONEY_SCALE, RoundingMode.HALF_UP),
+                    spot.sellPrice().multiply(purity).multiply(sellFactor).setScale(MONEY_SCALE, RoundingMode.HALF_UP)));
+        }
+        return new CaratPriceSnapshot(version, spot.id(), LocalDateTime.now(), quotes);
     }
 }
@@ -0,0 +1,36 @@
+package com.goldapp.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Every carat's price derived from one spot price; replaced whole, never mutated.
+// version increases by one per derivation, so clients can tell snapshots apart.
+public record CaratPriceSnapshot(long version,
+                                 Long spotPriceId,
+                                 LocalDateTime derivedAt,
+                                 List<CaratQuote> prices) {
+
+    public CaratPriceSnapshot {
+        prices = List.copyOf(prices);
+    }
+
+    public record CaratQuote(int carat, BigDecimal purity, BigDecimal buyPrice, BigDecimal sellPrice) {
+
+        // Keeps the JSON shape of the old carat_prices rows
+        public BigDecimal getPricePerGram() {
+            return buyPrice;
+        }
+    }
+
+    public Optional<CaratQuote> quote(int carat) {
+        // A handful of carats: a scan beats building a map per snapshot
+        for (CaratQuote quote : prices) {
+            if (quote.carat() == carat) {
+                return Optional.of(quote);
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,35 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.Transaction;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Detached copy of a carat trade, safe to keep in the idempotency cache and hand to
+// any thread; same field names as the Transaction JSON
+public record CaratTradeResult(Long id,
+                               Transaction.TransactionType type,
+                               Integer goldCarat,
+                               BigDecimal goldAmount,
+                               BigDecimal pricePerGram,
+                               BigDecimal totalAmount,
+                               Transaction.TransactionStatus status,
+                               String description,
+                               LocalDateTime createdAt,
+                               LocalDateTime completedAt) {
+
+    public static CaratTradeResult of(Transaction transaction) {
+        return new CaratTradeResult(
+                transaction.getId(),
+                transaction.getType(),
+                transaction.getGoldCarat(),
+                transaction.getGoldAmount(),
+                transaction.getPricePerGram(),
+                transaction.getTotalAmount(),
+                transaction.getStatus(),
+                transaction.getDescription(),
+                transaction.getCreatedAt(),
+                transaction.getCompletedAt()
+        );
+    }
+}
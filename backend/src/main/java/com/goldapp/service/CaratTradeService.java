@@ -0,0 +1,147 @@
+package com.goldapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.goldapp.entity.Transaction;
+import com.goldapp.entity.User;
+import com.goldapp.repository.TransactionRepository;
+import com.goldapp.service.CaratPriceSnapshot.CaratQuote;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Carat trades against the house. The ledger update and the persisted Transaction
+// commit together. With an Idempotency-Key, the first request's result is kept in a
+// bounded in-memory map, as a CaratTradeResult rather than the entity: retries and
+// concurrent duplicates get it back without touching the database. The key is also stored on the row, and its unique
+// constraint stops a second trade after a restart, an eviction or on another node.
+@Service
+public class CaratTradeService {
+
+    private static final int MONEY_SCALE = 2;
+    private static final int MAX_KEY_LENGTH = 64;
+
+    private final CaratPriceService caratPriceService;
+    private final AccountLedgerService accountLedgerService;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<String, CompletableFuture<CaratTradeResult>> results;
+
+    public CaratTradeService(CaratPriceService caratPriceService,
+                             AccountLedgerService accountLedgerService,
+                             TransactionRepository transactionRepository,
+                             TransactionTemplate transactionTemplate,
+                             @Value("${app.idempotency.maxSize:10000}") long maxSize,
+                             @Value("${app.idempotency.ttlMs:86400000}") long ttlMs) {
+        this.caratPriceService = caratPriceService;
+        this.accountLedgerService = accountLedgerService;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.results = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    public CaratTradeResult buy(User user, int carat, BigDecimal grams, String idempotencyKey) {
+        return trade(user, Transaction.TransactionType.BUY, carat, grams, idempotencyKey);
+    }
+
+    public CaratTradeResult sell(User user, int carat, BigDecimal grams, String idempotencyKey) {
+        return trade(user, Transaction.TransactionType.SELL, carat, grams, idempotencyKey);
+    }
+
+    private CaratTradeResult trade(User user, Transaction.TransactionType type, int carat, BigDecimal grams,
+                              String idempotencyKey) {
+        if (grams == null || grams.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("Amount must be positive");
+        }
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return execute(user, type, carat, grams, null);
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new RuntimeException("Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String cacheKey = user.getId() + ":" + idempotencyKey;
+        CompletableFuture<CaratTradeResult> mine = new CompletableFuture<>();
+        CompletableFuture<CaratTradeResult> first = results.asMap().putIfAbsent(cacheKey, mine);
+        if (first != null) {
+            return sameTrade(await(first), type, carat, grams);
+        }
+        try {
+            CaratTradeResult result = transactionRepository.findByUserIdAndIdempotencyKey(user.getId(), idempotencyKey)
+                    .map(existing -> sameTrade(CaratTradeResult.of(existing), type, carat, grams))
+                    .orElseGet(() -> executeOnce(user, type, carat, grams, idempotencyKey));
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            // Failures are not remembered, so the client may retry with the same key
+            results.asMap().remove(cacheKey, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private CaratTradeResult executeOnce(User user, Transaction.TransactionType type, int carat, BigDecimal grams,
+                                    String idempotencyKey) {
+        try {
+            return execute(user, type, carat, grams, idempotencyKey);
+        } catch (DataIntegrityViolationException e) {
+            // Another node committed this key first; our ledger change rolled back with the insert
+            return transactionRepository.findByUserIdAndIdempotencyKey(user.getId(), idempotencyKey)
+                    .map(existing -> sameTrade(CaratTradeResult.of(existing), type, carat, grams))
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private CaratTradeResult execute(User user, Transaction.TransactionType type, int carat, BigDecimal grams,
+                                String idempotencyKey) {
+        CaratQuote quote = caratPriceService.getCaratPrice(carat)
+                .orElseThrow(() -> new RuntimeException("Invalid carat"));
+        boolean buying = type == Transaction.TransactionType.BUY;
+        BigDecimal pricePerGram = buying ? quote.buyPrice() : quote.sellPrice();
+        BigDecimal total = pricePerGram.multiply(grams).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+
+        return transactionTemplate.execute(status -> {
+            // The principal is built from token claims and carries no balances; the ledger checks them
+            if (buying) {
+                accountLedgerService.debitForPurchase(user.getId(), total, grams);
+            } else {
+                accountLedgerService.creditForSale(user.getId(), grams, total);
+            }
+            Transaction tx = new Transaction(user, type, carat, grams, pricePerGram, total);
+            tx.setDescription(carat + "K " + (buying ? "purchase" : "sale"));
+            tx.setIdempotencyKey(idempotencyKey);
+            tx.markCompleted();
+            return CaratTradeResult.of(transactionRepository.saveAndFlush(tx));
+        });
+    }
+
+    private static CaratTradeResult sameTrade(CaratTradeResult existing, Transaction.TransactionType type, int carat,
+                                              BigDecimal grams) {
+        if (existing.type() != type || !Integer.valueOf(carat).equals(existing.goldCarat())
+                || existing.goldAmount().compareTo(grams) != 0) {
+            throw new RuntimeException("Idempotency-Key was already used for a different trade");
+        }
+        return existing;
+    }
+
+    private static CaratTradeResult await(CompletableFuture<CaratTradeResult> first) {
+        try {
+            return first.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
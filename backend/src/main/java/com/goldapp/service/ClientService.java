@@ -3,6 +3,7 @@ package com.goldapp.service;
 import com.goldapp.entity.Client;
 import com.goldapp.repository.ClientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -10,27 +11,47 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Service
 @Transactional
 public class ClientService {
     
+    private static final Pattern CEDULA_DASHED = Pattern.compile("\\d{1}-\\d{4}-\\d{4}");
+    private static final Pattern CEDULA_PLAIN = Pattern.compile("\\d{9}");
+    
     @Autowired
     private ClientRepository clientRepository;
     
+    @Autowired
+    private DirectorySearchService directorySearchService;
+    
+    @Autowired
+    private UniquenessGuard uniquenessGuard;
+    
     public Client createClient(Client client) {
         validateClient(client);
         
-        if (clientRepository.existsByCedula(client.getCedula())) {
+        if (uniquenessGuard.isTaken(UniquenessGuard.Key.CLIENT_CEDULA, client.getCedula(), clientRepository::existsByCedula)) {
             throw new RuntimeException("Client with cedula " + client.getCedula() + " already exists");
         }
         
+        // Emails have no unique constraint behind them, so they are always checked here
         if (client.getEmail() != null && !client.getEmail().isEmpty() && 
             clientRepository.existsByEmail(client.getEmail())) {
             throw new RuntimeException("Client with email " + client.getEmail() + " already exists");
         }
         
-        return clientRepository.save(client);
+        Client saved;
+        try {
+            saved = clientRepository.save(client);
+        } catch (DataIntegrityViolationException e) {
+            // Another node saved this cedula since our filter was last rebuilt
+            throw new RuntimeException("Client with cedula " + client.getCedula() + " already exists");
+        }
+        directorySearchService.clientSaved(saved);
+        uniquenessGuard.record(UniquenessGuard.Key.CLIENT_CEDULA, saved.getCedula());
+        return saved;
     }
     
     public Client updateClient(Long id, Client clientDetails) {
@@ -41,7 +62,7 @@ public class ClientService {
         
         // Check if cedula is being changed and if new cedula already exists
         if (!client.getCedula().equals(clientDetails.getCedula()) && 
-            clientRepository.existsByCedula(clientDetails.getCedula())) {
+            uniquenessGuard.isTaken(UniquenessGuard.Key.CLIENT_CEDULA, clientDetails.getCedula(), clientRepository::existsByCedula)) {
             throw new RuntimeException("Client with cedula " + clientDetails.getCedula() + " already exists");
         }
         
@@ -67,7 +88,10 @@ public class ClientService {
         client.setTaxId(clientDetails.getTaxId());
         client.setNotes(clientDetails.getNotes());
         
-        return clientRepository.save(client);
+        Client saved = clientRepository.save(client);
+        directorySearchService.clientSaved(saved);
+        uniquenessGuard.record(UniquenessGuard.Key.CLIENT_CEDULA, saved.getCedula());
+        return saved;
     }
     
     public Client getClientById(Long id) {
@@ -88,7 +112,7 @@ public class ClientService {
     }
     
     public Page<Client> searchClients(String searchTerm, Pageable pageable) {
-        return clientRepository.findBySearchTerm(searchTerm, pageable);
+        return directorySearchService.searchClients(searchTerm, pageable);
     }
     
     public List<Client> getClientsByType(Client.ClientType clientType) {
@@ -107,12 +131,14 @@ public class ClientService {
         Client client = getClientById(id);
         client.setActive(false);
         clientRepository.save(client);
+        directorySearchService.clientSaved(client);
     }
     
     public void activateClient(Long id) {
         Client client = getClientById(id);
         client.setActive(true);
         clientRepository.save(client);
+        directorySearchService.clientSaved(client);
     }
     
     public void deleteClient(Long id) {
@@ -120,9 +146,11 @@ public class ClientService {
             throw new RuntimeException("Client not found: " + id);
         }
         clientRepository.deleteById(id);
+        directorySearchService.clientDeleted(id);
     }
     
-    private void validateClient(Client client) {
+    // Also used by the bulk import, row by row
+    public void validateClient(Client client) {
         if (client.getFirstName() == null || client.getFirstName().trim().isEmpty()) {
             throw new RuntimeException("First name is required");
         }
@@ -155,6 +183,6 @@ public class ClientService {
         // Basic Costa Rica cedula validation
         // Format: X-XXXX-XXXX where X are digits
         // More sophisticated validation can be added later
-        return cedula.matches("\\d{1}-\\d{4}-\\d{4}") || cedula.matches("\\d{9}");
+        return CEDULA_DASHED.matcher(cedula).matches() || CEDULA_PLAIN.matcher(cedula).matches();
     }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.InventoryDailyRollup;
+import com.goldapp.entity.Invoice;
+import com.goldapp.entity.InvoiceDailyRollup;
+import com.goldapp.repository.InventoryDailyRollupRepository;
+import com.goldapp.repository.InvoiceDailyRollupRepository;
+import com.goldapp.repository.RollupUpsertRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+// Keeps the daily invoice and inventory rollups in step with the rows they summarise.
+// Deltas are applied in the caller's transaction, so a rollback undoes them too, and
+// each one is a single upsert on the connection the caller already holds.
+@Service
+@Transactional
+public class DailyRollupService {
+
+    private final InvoiceDailyRollupRepository invoiceRollupRepository;
+    private final InventoryDailyRollupRepository inventoryRollupRepository;
+    private final RollupUpsertRepository upsertRepository;
+
+    public DailyRollupService(InvoiceDailyRollupRepository invoiceRollupRepository,
+                              InventoryDailyRollupRepository inventoryRollupRepository,
+                              RollupUpsertRepository upsertRepository) {
+        this.invoiceRollupRepository = invoiceRollupRepository;
+        this.inventoryRollupRepository = inventoryRollupRepository;
+        this.upsertRepository = upsertRepository;
+    }
+
+    public void invoiceAdded(Invoice invoice) {
+        applyInvoiceDelta(invoice, invoice.getStatus(), 1, invoice.getTotal());
+    }
+
+    public void invoiceRemoved(Invoice invoice) {
+        applyInvoiceDelta(invoice, invoice.getStatus(), -1, invoice.getTotal().negate());
+    }
+
+    public void invoiceStatusChanged(Invoice invoice, Invoice.InvoiceStatus previousStatus) {
+        if (previousStatus == invoice.getStatus()) {
+            return;
+        }
+        applyInvoiceDelta(invoice, previousStatus, -1, invoice.getTotal().negate());
+        applyInvoiceDelta(invoice, invoice.getStatus(), 1, invoice.getTotal());
+    }
+
+    public void invoiceTotalChanged(Invoice invoice, BigDecimal previousTotal) {
+        BigDecimal delta = invoice.getTotal().subtract(previousTotal);
+        if (delta.signum() != 0) {
+            applyInvoiceDelta(invoice, invoice.getStatus(), 0, delta);
+        }
+    }
+
+    // Invoices written in a batch by the invoice generator, aggregated per day, type and status
+    public void invoicesAdded(LocalDate day, Invoice.InvoiceType type, Invoice.InvoiceStatus status,
+                              long count, BigDecimal amount) {
+        applyInvoiceDelta(day, type, status, count, amount);
+    }
+
+    // Movements are aggregated per day and carat by the inventory write-behind
+    public void inventoryMovementsRecorded(LocalDate day, int carat, long count,
+                                           BigDecimal quantityIn, BigDecimal quantityOut,
+                                           BigDecimal valueIn, BigDecimal valueOut) {
+        upsertRepository.addMovements(day, carat, count, quantityIn, quantityOut, valueIn, valueOut);
+    }
+
+    @Transactional(readOnly = true)
+    public BigDecimal getInvoiceTotal(Invoice.InvoiceType type, Invoice.InvoiceStatus status) {
+        return invoiceRollupRepository.getRunningTotal(InvoiceDailyRollup.RUNNING_TOTAL_DATE, type, status);
+    }
+
+    @Transactional(readOnly = true)
+    public List<InvoiceDailyRollup> getInvoiceRollups(LocalDate startDate, LocalDate endDate) {
+        // Days only; the running-total rows sit before any real date
+        LocalDate firstDay = InvoiceDailyRollup.RUNNING_TOTAL_DATE.plusDays(1);
+        return invoiceRollupRepository.findByRollupDateBetweenOrderByRollupDateAsc(
+                startDate.isBefore(firstDay) ? firstDay : startDate, endDate);
+    }
+
+    @Transactional(readOnly = true)
+    public List<InventoryDailyRollup> getInventoryRollups(LocalDate startDate, LocalDate endDate) {
+        return inventoryRollupRepository.findByRollupDateBetweenOrderByRollupDateAscCaratAsc(startDate, endDate);
+    }
+
+    @Transactional(readOnly = true)
+    public List<InventoryDailyRollup> getInventoryRollups(LocalDate day) {
+        return inventoryRollupRepository.findByRollupDateOrderByCaratAsc(day);
+    }
+
+    // Fills empty rollup tables from existing data, e.g. on the first start after an upgrade.
+    // Nodes starting together take turns on a lock; the later ones find the tables filled.
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        upsertRepository.lockForBackfill();
+        if (invoiceRollupRepository.count() == 0) {
+            invoiceRollupRepository.rebuildFromInvoices();
+        }
+        if (!invoiceRollupRepository.existsByRollupDate(InvoiceDailyRollup.RUNNING_TOTAL_DATE)) {
+            invoiceRollupRepository.rebuildRunningTotals(InvoiceDailyRollup.RUNNING_TOTAL_DATE);
+        }
+        if (inventoryRollupRepository.count() == 0) {
+            inventoryRollupRepository.rebuildFromMovements();
+        }
+    }
+
+    private void applyInvoiceDelta(Invoice invoice, Invoice.InvoiceStatus status, long countDelta, BigDecimal amountDelta) {
+        if (invoice.getIssueDate() == null || invoice.getInvoiceType() == null || status == null) {
+            return;
+        }
+        applyInvoiceDelta(invoice.getIssueDate().toLocalDate(), invoice.getInvoiceType(), status, countDelta, amountDelta);
+    }
+
+    private void applyInvoiceDelta(LocalDate day, Invoice.InvoiceType type, Invoice.InvoiceStatus status,
+                                   long countDelta, BigDecimal amountDelta) {
+        upsertRepository.addInvoices(day, type, status, countDelta, amountDelta);
+    }
+}
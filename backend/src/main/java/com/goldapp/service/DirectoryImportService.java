@@ -0,0 +1,358 @@
+package com.goldapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldapp.config.HibernateCacheConfig;
+import com.goldapp.entity.Client;
+import com.goldapp.entity.Provider;
+import com.goldapp.repository.DirectoryBatchRepository;
+import com.goldapp.repository.DirectoryBatchRepository.Existing;
+import com.goldapp.repository.DirectoryBatchRepository.Table;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// Bulk onboarding of clients and providers from CSV or NDJSON. Rows are streamed,
+// checked like the single-record endpoints and deduplicated on cedula and email in
+// memory, then upserted by cedula in JDBC batches, one transaction per batch. Only
+// cedulas and emails the uniqueness filters may have seen are looked up, once per
+// batch. Bad rows are reported and skipped; re-running the same file updates the rows
+// it already wrote, so an interrupted import can simply be sent again.
+@Service
+public class DirectoryImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectoryImportService.class);
+
+    private final DirectoryBatchRepository batchRepository;
+    private final ClientService clientService;
+    private final ProviderService providerService;
+    private final DirectorySearchService directorySearchService;
+    private final UniquenessGuard uniquenessGuard;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate newTransaction;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.imports.batchSize:500}")
+    private int batchSize;
+
+    @Value("${app.imports.maxErrors:1000}")
+    private int maxErrors;
+
+    public DirectoryImportService(DirectoryBatchRepository batchRepository,
+                                  ClientService clientService,
+                                  ProviderService providerService,
+                                  DirectorySearchService directorySearchService,
+                                  UniquenessGuard uniquenessGuard,
+                                  Validator validator,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  EntityManagerFactory entityManagerFactory) {
+        this.batchRepository = batchRepository;
+        this.clientService = clientService;
+        this.providerService = providerService;
+        this.directorySearchService = directorySearchService;
+        this.uniquenessGuard = uniquenessGuard;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    public record RowError(long line, String cedula, String message) {}
+
+    // errors holds the first app.imports.maxErrors failures, in line order; failed counts all of them
+    public record ImportResult(long rows, int inserted, int updated, long failed, List<RowError> errors) {}
+
+    public ImportResult importClients(InputStream in, ExportFormat format) {
+        return run(in, format, new Target<>(Table.CLIENTS, Client.class,
+                UniquenessGuard.Key.CLIENT_CEDULA,
+                DirectoryImportService::toClient, clientService::validateClient,
+                Client::getCedula, Client::getEmail, Client::setId, Client::setActive,
+                batchRepository::insertClients, batchRepository::updateClients,
+                directorySearchService::clientSaved, Client::getId));
+    }
+
+    public ImportResult importProviders(InputStream in, ExportFormat format) {
+        return run(in, format, new Target<>(Table.PROVIDERS, Provider.class,
+                UniquenessGuard.Key.PROVIDER_CEDULA,
+                DirectoryImportService::toProvider, providerService::validateProvider,
+                Provider::getCedula, Provider::getEmail, Provider::setId, Provider::setActive,
+                batchRepository::insertProviders, batchRepository::updateProviders,
+                directorySearchService::providerSaved, Provider::getId));
+    }
+
+    // How the import reads and writes one kind of directory record
+    private record Target<T>(Table table,
+                             Class<T> type,
+                             UniquenessGuard.Key cedulaKey,
+                             Function<Map<String, String>, T> parse,
+                             Consumer<T> validate,
+                             Function<T, String> cedula,
+                             Function<T, String> email,
+                             BiConsumer<T, Long> setId,
+                             BiConsumer<T, Boolean> setActive,
+                             BiConsumer<List<T>, LocalDateTime> insert,
+                             BiConsumer<List<T>, LocalDateTime> update,
+                             Consumer<T> saved,
+                             Function<T, Long> id) {}
+
+    private record Pending<T>(long line, T record) {}
+
+    private record BatchResult(int inserted, List<Long> updatedIds, List<RowError> errors) {}
+
+    private final class Progress {
+        private long rows;
+        private int inserted;
+        private int updated;
+        private long failed;
+        private final List<RowError> errors = new ArrayList<>();
+
+        private void fail(long line, String cedula, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new RowError(line, cedula, message));
+            }
+        }
+
+        private ImportResult result() {
+            errors.sort(Comparator.comparingLong(RowError::line));
+            return new ImportResult(rows, inserted, updated, failed, errors);
+        }
+    }
+
+    private <T> ImportResult run(InputStream in, ExportFormat format, Target<T> target) {
+        Progress progress = new Progress();
+        // First line each cedula and email was seen on; later repeats are rejected
+        Map<String, Long> cedulaLines = new HashMap<>();
+        Map<String, Long> emailLines = new HashMap<>();
+        List<Pending<T>> batch = new ArrayList<>(batchSize);
+
+        try (ImportReader reader = new ImportReader(in, format, objectMapper)) {
+            for (ImportReader.Row row = reader.next(); row != null; row = reader.next()) {
+                progress.rows++;
+                if (row.error() != null) {
+                    progress.fail(row.line(), null, row.error());
+                    continue;
+                }
+                T record;
+                try {
+                    record = target.parse().apply(row.fields());
+                    validate(record, target);
+                } catch (RuntimeException e) {
+                    progress.fail(row.line(), trimToNull(row.fields().get("cedula")), e.getMessage());
+                    continue;
+                }
+
+                String cedula = target.cedula().apply(record);
+                String email = target.email().apply(record);
+                Long cedulaLine = cedulaLines.get(cedula);
+                if (cedulaLine != null) {
+                    progress.fail(row.line(), cedula, "Cedula already appears on line " + cedulaLine);
+                    continue;
+                }
+                Long emailLine = email != null ? emailLines.get(email) : null;
+                if (emailLine != null) {
+                    progress.fail(row.line(), cedula, "Email " + email + " already appears on line " + emailLine);
+                    continue;
+                }
+                cedulaLines.put(cedula, row.line());
+                if (email != null) {
+                    emailLines.put(email, row.line());
+                }
+
+                batch.add(new Pending<>(row.line(), record));
+                if (batch.size() >= batchSize) {
+                    write(batch, target, progress);
+                    batch.clear();
+                }
+            }
+            write(batch, target, progress);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        logger.info("Imported {}: {} rows, {} inserted, {} updated, {} failed",
+                target.table().name().toLowerCase(Locale.ROOT), progress.rows, progress.inserted, progress.updated,
+                progress.failed);
+        return progress.result();
+    }
+
+    // A batch that fails as a whole (a cedula written meanwhile by someone else, say)
+    // is retried row by row so only the offending rows are reported
+    private <T> void write(List<Pending<T>> batch, Target<T> target, Progress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        BatchResult result;
+        try {
+            result = newTransaction.execute(status -> upsert(batch, target));
+        } catch (DataAccessException e) {
+            if (batch.size() == 1) {
+                Pending<T> row = batch.get(0);
+                progress.fail(row.line(), target.cedula().apply(row.record()),
+                        "Could not be saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                return;
+            }
+            logger.warn("Import batch of {} rows failed, retrying row by row", batch.size(), e);
+            for (Pending<T> row : batch) {
+                write(List.of(row), target, progress);
+            }
+            return;
+        }
+        evictCached(target, result.updatedIds());
+        progress.inserted += result.inserted();
+        progress.updated += result.updatedIds().size();
+        result.errors().forEach(error -> progress.fail(error.line(), error.cedula(), error.message()));
+    }
+
+    private <T> BatchResult upsert(List<Pending<T>> batch, Target<T> target) {
+        List<String> cedulas = batch.stream()
+                .map(row -> target.cedula().apply(row.record()))
+                .filter(cedula -> uniquenessGuard.mightBeTaken(target.cedulaKey(), cedula))
+                .toList();
+        // Emails are not unique-constrained, so none are skipped on the filter's word
+        List<String> emails = batch.stream()
+                .map(row -> target.email().apply(row.record()))
+                .filter(email -> email != null && !email.isEmpty())
+                .toList();
+        Map<String, Existing> existing = batchRepository.findExistingByCedula(target.table(), cedulas);
+        Map<String, String> emailOwners = batchRepository.findCedulasByEmail(target.table(), emails);
+
+        List<T> inserts = new ArrayList<>();
+        List<T> updates = new ArrayList<>();
+        List<RowError> errors = new ArrayList<>();
+        for (Pending<T> row : batch) {
+            String cedula = target.cedula().apply(row.record());
+            String email = target.email().apply(row.record());
+            String owner = email != null ? emailOwners.get(email) : null;
+            if (owner != null && !owner.equals(cedula)) {
+                errors.add(new RowError(row.line(), cedula, "Email " + email + " already belongs to another record"));
+                continue;
+            }
+            // Reported to search as the row now stands: an update leaves a deactivated record out of results
+            Existing stored = existing.get(cedula);
+            target.setId().accept(row.record(), stored != null ? stored.id() : null);
+            target.setActive().accept(row.record(), stored == null || stored.active());
+            (stored == null ? inserts : updates).add(row.record());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        target.insert().accept(inserts, now);
+        target.update().accept(updates, now);
+        for (List<T> written : List.of(inserts, updates)) {
+            for (T record : written) {
+                target.saved().accept(record);
+                uniquenessGuard.record(target.cedulaKey(), target.cedula().apply(record));
+            }
+        }
+        return new BatchResult(inserts.size(), updates.stream().map(target.id()).toList(), errors);
+    }
+
+    // The rows were written behind Hibernate's back: drop the cached copies of updated
+    // rows, and cached lookups, which hold row values or found no row for a new cedula
+    private <T> void evictCached(Target<T> target, List<Long> updatedIds) {
+        Cache cache = entityManagerFactory.getCache();
+        updatedIds.forEach(id -> cache.evict(target.type(), id));
+        cache.unwrap(org.hibernate.Cache.class).evictQueryRegion(HibernateCacheConfig.DIRECTORY_QUERIES);
+    }
+
+    // Bean constraints first (lengths, email format), then the services' own rules
+    private <T> void validate(T record, Target<T> target) {
+        Set<ConstraintViolation<T>> violations = validator.validate(record);
+        if (!violations.isEmpty()) {
+            ConstraintViolation<T> violation = violations.iterator().next();
+            throw new RuntimeException(violation.getPropertyPath() + " " + violation.getMessage());
+        }
+        target.validate().accept(record);
+    }
+
+    private static Client toClient(Map<String, String> fields) {
+        Client client = new Client();
+        client.setFirstName(field(fields, "firstname"));
+        client.setLastName(field(fields, "lastname"));
+        client.setCedula(field(fields, "cedula"));
+        client.setEmail(field(fields, "email"));
+        client.setPhoneNumber(field(fields, "phonenumber"));
+        client.setAddress(field(fields, "address"));
+        client.setCity(field(fields, "city"));
+        client.setProvince(field(fields, "province"));
+        client.setZipCode(field(fields, "zipcode"));
+        String type = field(fields, "clienttype");
+        if (type != null) {
+            client.setClientType(parseType(Client.ClientType.class, type, "client type"));
+        }
+        client.setCompanyName(field(fields, "companyname"));
+        client.setTaxId(field(fields, "taxid"));
+        client.setNotes(field(fields, "notes"));
+        return client;
+    }
+
+    private static Provider toProvider(Map<String, String> fields) {
+        Provider provider = new Provider();
+        provider.setFirstName(field(fields, "firstname"));
+        provider.setLastName(field(fields, "lastname"));
+        provider.setCedula(field(fields, "cedula"));
+        provider.setEmail(field(fields, "email"));
+        provider.setPhoneNumber(field(fields, "phonenumber"));
+        provider.setAddress(field(fields, "address"));
+        provider.setCity(field(fields, "city"));
+        provider.setProvince(field(fields, "province"));
+        provider.setZipCode(field(fields, "zipcode"));
+        String type = field(fields, "providertype");
+        if (type != null) {
+            provider.setProviderType(parseType(Provider.ProviderType.class, type, "provider type"));
+        }
+        provider.setCompanyName(field(fields, "companyname"));
+        provider.setTaxId(field(fields, "taxid"));
+        provider.setBankAccount(field(fields, "bankaccount"));
+        provider.setBankName(field(fields, "bankname"));
+        provider.setNotes(field(fields, "notes"));
+        return provider;
+    }
+
+    private static String field(Map<String, String> fields, String name) {
+        return trimToNull(fields.get(name));
+    }
+
+    private static String trimToNull(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+
+    private static <E extends Enum<E>> E parseType(Class<E> type, String value, String label) {
+        try {
+            return Enum.valueOf(type, value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unknown " + label + ": " + value);
+        }
+    }
+}
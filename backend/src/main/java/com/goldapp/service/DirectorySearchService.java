@@ -0,0 +1,176 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.Client;
+import com.goldapp.entity.Provider;
+import com.goldapp.repository.ClientRepository;
+import com.goldapp.repository.ProviderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Client and provider lookup served from in-memory trigram indexes instead of
+// LIKE '%x%' scans. ClientService and ProviderService report their writes here and
+// the index changes once those commit; a periodic rebuild picks up other nodes' writes.
+@Service
+public class DirectorySearchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DirectorySearchService.class);
+
+    private final ClientRepository clientRepository;
+    private final ProviderRepository providerRepository;
+
+    // Replaced whole by a rebuild; incremental updates go to whichever is current
+    private volatile SearchIndex clients = new SearchIndex();
+    private volatile SearchIndex providers = new SearchIndex();
+
+    private final Object swapLock = new Object();
+    // Updates committed while a rebuild loads, replayed onto its indexes before the swap
+    // so they are not lost with the old ones; null when no rebuild is running
+    private List<Consumer<SearchIndex>> clientChanges;
+    private List<Consumer<SearchIndex>> providerChanges;
+
+    @Value("${app.search.maxResults:50}")
+    private int maxResults;
+
+    public DirectorySearchService(ClientRepository clientRepository, ProviderRepository providerRepository) {
+        this.clientRepository = clientRepository;
+        this.providerRepository = providerRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.search.rebuildMs:300000}", initialDelayString = "${app.search.rebuildMs:300000}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        synchronized (swapLock) {
+            clientChanges = new ArrayList<>();
+            providerChanges = new ArrayList<>();
+        }
+        SearchIndex nextClients = new SearchIndex();
+        SearchIndex nextProviders = new SearchIndex();
+        try {
+            clientRepository.findAll().forEach(client -> nextClients.put(entryOf(client)));
+            providerRepository.findAll().forEach(provider -> nextProviders.put(entryOf(provider)));
+            synchronized (swapLock) {
+                // Replayed last, as the load may have read rows from before these commits
+                clientChanges.forEach(change -> change.accept(nextClients));
+                providerChanges.forEach(change -> change.accept(nextProviders));
+                clients = nextClients;
+                providers = nextProviders;
+            }
+        } finally {
+            synchronized (swapLock) {
+                clientChanges = null;
+                providerChanges = null;
+            }
+        }
+        logger.debug("Search indexes rebuilt: {} clients, {} providers", nextClients.size(), nextProviders.size());
+    }
+
+    public void clientSaved(Client client) {
+        SearchIndex.Entry entry = entryOf(client);
+        afterCommit(() -> changeClients(index -> index.put(entry)));
+    }
+
+    public void clientDeleted(Long id) {
+        afterCommit(() -> changeClients(index -> index.remove(id)));
+    }
+
+    public void providerSaved(Provider provider) {
+        SearchIndex.Entry entry = entryOf(provider);
+        afterCommit(() -> changeProviders(index -> index.put(entry)));
+    }
+
+    public void providerDeleted(Long id) {
+        afterCommit(() -> changeProviders(index -> index.remove(id)));
+    }
+
+    private void changeClients(Consumer<SearchIndex> change) {
+        synchronized (swapLock) {
+            change.accept(clients);
+            if (clientChanges != null) {
+                clientChanges.add(change);
+            }
+        }
+    }
+
+    private void changeProviders(Consumer<SearchIndex> change) {
+        synchronized (swapLock) {
+            change.accept(providers);
+            if (providerChanges != null) {
+                providerChanges.add(change);
+            }
+        }
+    }
+
+    // Ranked active clients; only the requested page is loaded, by primary key
+    @Transactional(readOnly = true)
+    public Page<Client> searchClients(String query, Pageable pageable) {
+        return search(clients, query, pageable, clientRepository::findAllById, Client::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Provider> searchProviders(String query, Pageable pageable) {
+        return search(providers, query, pageable, providerRepository::findAllById, Provider::getId);
+    }
+
+    private <T> Page<T> search(SearchIndex index, String query, Pageable pageable,
+                               Function<List<Long>, List<T>> loader, Function<T, Long> idOf) {
+        int limit = Math.min((int) pageable.getOffset() + pageable.getPageSize(), maxResults);
+        SearchIndex.Result result = index.search(query, limit);
+        List<Long> ids = result.ids().stream().skip(pageable.getOffset()).toList();
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), pageable, Math.min(result.total(), maxResults));
+        }
+        Map<Long, Integer> rank = ids.stream().collect(Collectors.toMap(id -> id, ids::indexOf));
+        List<T> rows = loader.apply(ids).stream()
+                .sorted(Comparator.comparing(row -> rank.get(idOf.apply(row))))
+                .toList();
+        return new PageImpl<>(rows, pageable, Math.min(result.total(), maxResults));
+    }
+
+    private static SearchIndex.Entry entryOf(Client client) {
+        return new SearchIndex.Entry(client.getId(), displayName(client.getFirstName(), client.getLastName(),
+                client.getCompanyName()), client.getCedula(), client.getEmail(), client.isActive());
+    }
+
+    private static SearchIndex.Entry entryOf(Provider provider) {
+        return new SearchIndex.Entry(provider.getId(), displayName(provider.getFirstName(), provider.getLastName(),
+                provider.getCompanyName()), provider.getCedula(), provider.getEmail(), provider.isActive());
+    }
+
+    private static String displayName(String firstName, String lastName, String companyName) {
+        String name = (firstName != null ? firstName : "") + " " + (lastName != null ? lastName : "");
+        return companyName != null ? name + " " + companyName : name;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.goldapp.service;
+
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String fileName(String baseName) {
+        return baseName + "." + extension;
+    }
+
+    public static ExportFormat fromString(String format) {
+        try {
+            return valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Unsupported format: " + format);
+        }
+    }
+
+    // For uploads; parameters such as charset are ignored
+    public static ExportFormat fromContentType(String contentType) {
+        String type = contentType.split(";")[0].trim();
+        for (ExportFormat format : values()) {
+            if (format.contentType.equalsIgnoreCase(type)) {
+                return format;
+            }
+        }
+        throw new RuntimeException("Unsupported format: " + contentType);
+    }
+}
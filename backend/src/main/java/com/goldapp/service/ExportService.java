@@ -0,0 +1,149 @@
+package com.goldapp.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.goldapp.repository.ExportRepository;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+// Writes exports row by row straight from the database cursor to the response,
+// so memory use does not depend on the size of the date range
+@Service
+@Transactional(readOnly = true)
+public class ExportService {
+
+    private final ExportRepository exportRepository;
+    private final ObjectMapper objectMapper;
+
+    public ExportService(ExportRepository exportRepository, ObjectMapper objectMapper) {
+        this.exportRepository = exportRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    public long exportTransactions(Long userId, LocalDateTime startDate, LocalDateTime endDate,
+                                   ExportFormat format, OutputStream out) {
+        return exportRepository.streamTransactions(userId, startDate, endDate, rowWriter(format, out));
+    }
+
+    public long exportInvoices(LocalDateTime startDate, LocalDateTime endDate, ExportFormat format, OutputStream out) {
+        return exportRepository.streamInvoices(startDate, endDate, rowWriter(format, out));
+    }
+
+    public long exportInventoryMovements(LocalDateTime startDate, LocalDateTime endDate,
+                                         ExportFormat format, OutputStream out) {
+        return exportRepository.streamInventoryMovements(startDate, endDate, rowWriter(format, out));
+    }
+
+    private ResultSetExtractor<Long> rowWriter(ExportFormat format, OutputStream out) {
+        return rs -> {
+            try {
+                return format == ExportFormat.CSV ? writeCsv(rs, out) : writeNdjson(rs, out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    private long writeCsv(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        String[] columns = columnNames(rs.getMetaData());
+        for (int i = 0; i < columns.length; i++) {
+            if (i > 0) writer.write(',');
+            writer.write(columns[i]);
+        }
+        writer.write('\n');
+
+        long rows = 0;
+        while (rs.next()) {
+            for (int i = 0; i < columns.length; i++) {
+                if (i > 0) writer.write(',');
+                Object value = readValue(rs, i + 1);
+                if (value != null) {
+                    writer.write(csvEscape(value instanceof BigDecimal number ? number.toPlainString() : value.toString()));
+                }
+            }
+            writer.write('\n');
+            rows++;
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private long writeNdjson(ResultSet rs, OutputStream out) throws SQLException, IOException {
+        String[] columns = columnNames(rs.getMetaData());
+        long rows = 0;
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Records are separated by the newline below, not Jackson's default space
+            generator.setRootValueSeparator(null);
+            while (rs.next()) {
+                generator.writeStartObject();
+                for (int i = 0; i < columns.length; i++) {
+                    Object value = readValue(rs, i + 1);
+                    generator.writeFieldName(columns[i]);
+                    if (value == null) {
+                        generator.writeNull();
+                    } else if (value instanceof BigDecimal number) {
+                        generator.writeNumber(number);
+                    } else if (value instanceof Double number) {
+                        generator.writeNumber(number);
+                    } else if (value instanceof Float number) {
+                        generator.writeNumber(number);
+                    } else if (value instanceof BigInteger number) {
+                        generator.writeNumber(number);
+                    } else if (value instanceof Number number) {
+                        // Integer, Long, Short, Byte
+                        generator.writeNumber(number.longValue());
+                    } else {
+                        generator.writeString(value.toString());
+                    }
+                }
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    private static String[] columnNames(ResultSetMetaData metaData) throws SQLException {
+        String[] columns = new String[metaData.getColumnCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = metaData.getColumnLabel(i + 1).toLowerCase(Locale.ROOT);
+        }
+        return columns;
+    }
+
+    // Timestamps are written as ISO local date-times, like the JSON endpoints
+    private static Object readValue(ResultSet rs, int column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return value;
+    }
+
+    private static String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
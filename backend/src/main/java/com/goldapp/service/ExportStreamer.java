@@ -0,0 +1,70 @@
+package com.goldapp.service;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+// Runs an export on the task executor and streams it through an emitter that carries
+// the export's own timeout; other async endpoints keep the MVC default. Sends block
+// while the client is slow to read, so the database cursor advances at its pace.
+@Component
+public class ExportStreamer {
+
+    private static final int CHUNK_BYTES = 8192;
+
+    private final AsyncTaskExecutor taskExecutor;
+
+    @Value("${app.export.timeoutMs:600000}")
+    private long timeoutMs;
+
+    public ExportStreamer(@Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+                          AsyncTaskExecutor taskExecutor) {
+        this.taskExecutor = taskExecutor;
+    }
+
+    public ResponseBodyEmitter stream(MediaType contentType, StreamingResponseBody body) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeoutMs);
+        taskExecutor.execute(() -> {
+            try (OutputStream out = new BufferedOutputStream(new EmitterOutputStream(emitter, contentType), CHUNK_BYTES)) {
+                body.writeTo(out);
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+                return;
+            }
+            emitter.complete();
+        });
+        return emitter;
+    }
+
+    private static final class EmitterOutputStream extends OutputStream {
+        private final ResponseBodyEmitter emitter;
+        private final MediaType contentType;
+
+        private EmitterOutputStream(ResponseBodyEmitter emitter, MediaType contentType) {
+            this.emitter = emitter;
+            this.contentType = contentType;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            emitter.send(new byte[] {(byte) b}, contentType);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            if (length > 0) {
+                emitter.send(Arrays.copyOfRange(bytes, offset, offset + length), contentType);
+            }
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.goldapp.service;
 
 import com.goldapp.entity.GoldInventory;
-import com.goldapp.entity.InventoryMovement;
+import com.goldapp.entity.InventoryDailyRollup;
 import com.goldapp.entity.Transaction;
 import com.goldapp.repository.GoldInventoryRepository;
 import com.goldapp.repository.InventoryMovementRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -23,6 +30,12 @@ public class GoldInventoryService {
     @Autowired
     private InventoryMovementRepository movementRepository;
     
+    @Autowired
+    private DailyRollupService dailyRollupService;
+    
+    @Autowired
+    private InventoryBook inventoryBook;
+    
     public GoldInventory createInventory(GoldInventory inventory) {
         validateInventory(inventory);
         
@@ -30,7 +43,9 @@ public class GoldInventoryService {
             throw new RuntimeException("Inventory for " + inventory.getCarat() + " carat gold already exists");
         }
         
-        return inventoryRepository.save(inventory);
+        GoldInventory saved = inventoryRepository.save(inventory);
+        inventoryBook.reloadAfterCommit();
+        return saved;
     }
     
     public GoldInventory updateInventory(Long id, GoldInventory inventoryDetails) {
@@ -50,7 +65,9 @@ public class GoldInventoryService {
         inventory.setMaximumStock(inventoryDetails.getMaximumStock());
         inventory.setNotes(inventoryDetails.getNotes());
         
-        return inventoryRepository.save(inventory);
+        GoldInventory saved = inventoryRepository.save(inventory);
+        inventoryBook.reloadAfterCommit();
+        return saved;
     }
     
     public GoldInventory getInventoryById(Long id) {
@@ -66,12 +83,19 @@ public class GoldInventoryService {
         return inventoryRepository.findAllByOrderByCaratAsc();
     }
     
-    public List<GoldInventory> getLowStockItems() {
-        return inventoryRepository.findLowStockItems();
+    @Transactional(readOnly = true)
+    public List<InventoryItemSummary> getInventorySummaries() {
+        return inventoryRepository.findAllSummaries();
     }
     
-    public List<GoldInventory> getOverStockItems() {
-        return inventoryRepository.findOverStockItems();
+    @Transactional(readOnly = true)
+    public List<InventoryItemSummary> getLowStockItems() {
+        return inventoryRepository.findLowStockSummaries();
+    }
+    
+    @Transactional(readOnly = true)
+    public List<InventoryItemSummary> getOverStockItems() {
+        return inventoryRepository.findOverStockSummaries();
     }
     
     public BigDecimal getTotalInventoryValue() {
@@ -84,100 +108,113 @@ public class GoldInventoryService {
         return total != null ? total : BigDecimal.ZERO;
     }
     
+    // Stock changes go through the inventory book and are written behind in batches
     @Transactional
     public void addStock(Integer carat, BigDecimal quantity, BigDecimal pricePerGram, 
                         String reason, Transaction transaction) {
         validateStockOperation(quantity, pricePerGram);
         
-        GoldInventory inventory = getOrCreateInventory(carat);
+        if (!inventoryBook.hasCarat(carat)) {
+            getOrCreateInventory(carat);
+            inventoryBook.reloadAfterCommit();
+        }
         
-        inventory.addStock(quantity, pricePerGram);
-        inventoryRepository.save(inventory);
+        inventoryBook.add(carat, quantity, pricePerGram, reason, transaction);
+    }
+    
+    // A whole shipment of purchases: one book update per carat instead of one per lot
+    @Transactional
+    public void addStock(List<Transaction> purchases, String reason) {
+        Map<Integer, List<Transaction>> byCarat = new TreeMap<>();
+        for (Transaction purchase : purchases) {
+            validateStockOperation(purchase.getGoldAmount(), purchase.getPricePerGram());
+            byCarat.computeIfAbsent(purchase.getGoldCarat(), carat -> new ArrayList<>()).add(purchase);
+        }
+        
+        boolean created = false;
+        for (Integer carat : byCarat.keySet()) {
+            if (!inventoryBook.hasCarat(carat)) {
+                getOrCreateInventory(carat);
+                created = true;
+            }
+        }
+        if (created) {
+            inventoryBook.reloadAfterCommit();
+        }
         
-        // Record movement
-        InventoryMovement movement = new InventoryMovement(
-                inventory, 
-                InventoryMovement.MovementType.IN, 
-                quantity, 
-                pricePerGram, 
-                reason
-        );
-        movement.setTransaction(transaction);
-        movement.setBalanceAfter(inventory.getQuantityInGrams());
-        movementRepository.save(movement);
+        byCarat.forEach((carat, lots) -> inventoryBook.addAll(carat, lots, reason));
     }
     
     @Transactional
     public void removeStock(Integer carat, BigDecimal quantity, String reason, Transaction transaction) {
         validateStockOperation(quantity, null);
         
-        GoldInventory inventory = inventoryRepository.findByCarat(carat)
-                .orElseThrow(() -> new RuntimeException("No inventory found for " + carat + " carat gold"));
-        
-        inventory.removeStock(quantity);
-        inventoryRepository.save(inventory);
-        
-        // Record movement - use current average price for record keeping
-        InventoryMovement movement = new InventoryMovement(
-                inventory, 
-                InventoryMovement.MovementType.OUT, 
-                quantity, 
-                inventory.getAverageBuyPrice(), 
-                reason
-        );
-        movement.setTransaction(transaction);
-        movement.setBalanceAfter(inventory.getQuantityInGrams());
-        movementRepository.save(movement);
+        inventoryBook.remove(carat, quantity, reason, transaction);
+    }
+    
+    @Transactional
+    public void removeHeldStock(InventoryBook.Hold hold, String reason, Transaction transaction) {
+        inventoryBook.removeHeld(hold, reason, transaction);
     }
     
     @Transactional
     public void adjustStock(Long inventoryId, BigDecimal newQuantity, String reason) {
-        GoldInventory inventory = getInventoryById(inventoryId);
-        BigDecimal currentQuantity = inventory.getQuantityInGrams();
-        BigDecimal difference = newQuantity.subtract(currentQuantity);
-        
-        if (difference.compareTo(BigDecimal.ZERO) == 0) {
-            return; // No change needed
+        if (newQuantity == null || newQuantity.compareTo(BigDecimal.ZERO) < 0) {
+            throw new RuntimeException("Quantity cannot be negative");
         }
         
-        inventory.setQuantityInGrams(newQuantity);
-        inventoryRepository.save(inventory);
-        
-        // Record adjustment movement
-        InventoryMovement.MovementType movementType = difference.compareTo(BigDecimal.ZERO) > 0 ?
-                InventoryMovement.MovementType.ADJUSTMENT_IN : InventoryMovement.MovementType.ADJUSTMENT_OUT;
-        
-        InventoryMovement movement = new InventoryMovement(
-                inventory, 
-                movementType, 
-                difference.abs(), 
-                inventory.getAverageBuyPrice(), 
-                reason
-        );
-        movement.setBalanceAfter(inventory.getQuantityInGrams());
-        movementRepository.save(movement);
+        inventoryBook.adjust(inventoryId, newQuantity, reason);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<MovementSummary> getMovements(int page, int size) {
+        return movementRepository.findSummaries(PageRequest.of(page, size));
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<MovementSummary> getMovements(Long inventoryId, int page, int size) {
+        if (!inventoryRepository.existsById(inventoryId)) {
+            throw new RuntimeException("Inventory not found: " + inventoryId);
+        }
+        return movementRepository.findSummariesByInventoryId(inventoryId, PageRequest.of(page, size));
+    }
+    
+    @Transactional(readOnly = true)
+    public KeysetPage<MovementSummary> getMovements(String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<MovementSummary> rows = after == null
+                ? movementRepository.findFirstPage(limit)
+                : movementRepository.findPageAfter(after.createdAt(), after.id(), limit);
+        return KeysetPage.of(rows, size, movement -> new KeysetCursor(movement.createdAt(), movement.id()));
+    }
+    
+    public List<InventoryDailyRollup> getDailyRollups(LocalDate startDate, LocalDate endDate) {
+        return dailyRollupService.getInventoryRollups(startDate, endDate);
+    }
+    
+    public List<InventoryDailyRollup> getDailyRollups(LocalDate day) {
+        return dailyRollupService.getInventoryRollups(day);
     }
     
     public boolean hasAvailableStock(Integer carat, BigDecimal requiredQuantity) {
-        Optional<GoldInventory> inventory = inventoryRepository.findByCarat(carat);
-        return inventory.isPresent() && 
-               inventory.get().getQuantityInGrams().compareTo(requiredQuantity) >= 0;
+        return inventoryBook.hasCarat(carat) &&
+               inventoryBook.getAvailable(carat).compareTo(requiredQuantity) >= 0;
     }
     
     public BigDecimal getAvailableStock(Integer carat) {
-        return inventoryRepository.findByCarat(carat)
-                .map(GoldInventory::getQuantityInGrams)
-                .orElse(BigDecimal.ZERO);
+        return inventoryBook.getAvailable(carat);
     }
     
     public void deleteInventory(Long id) {
-        GoldInventory inventory = getInventoryById(id);
+        getInventoryById(id);
         
-        if (inventory.getQuantityInGrams().compareTo(BigDecimal.ZERO) > 0) {
+        if (inventoryBook.getQuantity(id).compareTo(BigDecimal.ZERO) > 0) {
             throw new RuntimeException("Cannot delete inventory with remaining stock");
         }
         
         inventoryRepository.deleteById(id);
+        inventoryBook.reloadAfterCommit();
     }
     
     private GoldInventory getOrCreateInventory(Integer carat) {
@@ -3,12 +3,19 @@ package com.goldapp.service;
 import com.goldapp.entity.GoldPrice;
 import com.goldapp.repository.GoldPriceRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Transactional
@@ -17,21 +24,52 @@ public class GoldPriceService {
     @Autowired
     private GoldPriceRepository goldPriceRepository;
     
-    public Optional<GoldPrice> getCurrentPrice() {
-        return goldPriceRepository.findLatestActivePrice();
+    @Autowired
+    private PriceStreamService priceStreamService;
+    
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    // Current price held in memory; swapped whole, never mutated
+    private final AtomicReference<GoldPriceSnapshot> currentSnapshot = new AtomicReference<>();
+    
+    // No transaction of its own: a long-lived request such as the price stream would
+    // otherwise hold the connection it checked out until the request ends
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Optional<GoldPriceSnapshot> getCurrentPrice() {
+        GoldPriceSnapshot snapshot = currentSnapshot.get();
+        if (snapshot == null) {
+            snapshot = reloadSnapshot();
+        }
+        return Optional.ofNullable(snapshot);
     }
     
     public GoldPrice updatePrice(BigDecimal buyPrice, BigDecimal sellPrice) {
         // Deactivate previous prices
-        goldPriceRepository.findLatestActivePrice()
-                .ifPresent(price -> {
-                    price.setActive(false);
-                    goldPriceRepository.save(price);
-                });
+        goldPriceRepository.deactivateActivePrices();
         
         // Create new active price
-        GoldPrice newPrice = new GoldPrice(buyPrice, sellPrice);
-        return goldPriceRepository.save(newPrice);
+        GoldPrice newPrice = goldPriceRepository.save(new GoldPrice(buyPrice, sellPrice));
+        priceHistoryService.recordTick(newPrice);
+        publishAfterCommit(GoldPriceSnapshot.of(newPrice));
+        return newPrice;
+    }
+    
+    // Loads the active price at startup
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadCurrentPrice() {
+        reloadSnapshot();
+    }
+    
+    // Picks up prices written by other nodes
+    @Scheduled(fixedDelayString = "${app.goldPrice.refreshMs:5000}")
+    @Transactional(readOnly = true)
+    public void refreshCurrentPrice() {
+        reloadSnapshot();
     }
     
     // Scheduled method to update gold prices (runs every hour)
@@ -43,11 +81,11 @@ public class GoldPriceService {
     }
     
     private void simulatePriceUpdate() {
-        Optional<GoldPrice> currentPriceOpt = getCurrentPrice();
+        Optional<GoldPriceSnapshot> currentPriceOpt = getCurrentPrice();
         
         BigDecimal basePrice;
         if (currentPriceOpt.isPresent()) {
-            basePrice = currentPriceOpt.get().getBuyPrice();
+            basePrice = currentPriceOpt.get().buyPrice();
         } else {
             basePrice = new BigDecimal("2000.00"); // Default price
         }
@@ -61,8 +99,57 @@ public class GoldPriceService {
     }
     
     public void initializeDefaultPrice() {
-        if (goldPriceRepository.findLatestActivePrice().isEmpty()) {
+        if (goldPriceRepository.findFirstByIsActiveTrueOrderByTimestampDesc().isEmpty()) {
             updatePrice(new BigDecimal("2000.00"), new BigDecimal("1960.00"));
         }
     }
+    
+    private GoldPriceSnapshot reloadSnapshot() {
+        GoldPriceSnapshot loaded = goldPriceRepository.findFirstByIsActiveTrueOrderByTimestampDesc()
+                .map(GoldPriceSnapshot::of)
+                .orElse(null);
+        if (loaded != null && swapIfNewer(loaded)) {
+            announce(loaded);
+        }
+        return currentSnapshot.get();
+    }
+    
+    // Ids grow with every price written, so a reload racing updatePrice never brings back an older row
+    private boolean swapIfNewer(GoldPriceSnapshot snapshot) {
+        while (true) {
+            GoldPriceSnapshot previous = currentSnapshot.get();
+            if (previous != null && previous.id() >= snapshot.id()) {
+                return false;
+            }
+            if (currentSnapshot.compareAndSet(previous, snapshot)) {
+                return true;
+            }
+        }
+    }
+    
+    // Readers only see a price once the row that backs it is committed
+    private void publishAfterCommit(GoldPriceSnapshot snapshot) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(snapshot);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(snapshot);
+            }
+        });
+    }
+    
+    private void publish(GoldPriceSnapshot snapshot) {
+        if (swapIfNewer(snapshot)) {
+            announce(snapshot);
+        }
+    }
+    
+    // Stream subscribers get the tick; listeners such as CaratPriceService re-derive from it
+    private void announce(GoldPriceSnapshot snapshot) {
+        priceStreamService.publishGoldPrice(snapshot);
+        eventPublisher.publishEvent(snapshot);
+    }
 }
\ No newline at end of file
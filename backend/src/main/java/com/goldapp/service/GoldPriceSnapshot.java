@@ -0,0 +1,33 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.GoldPrice;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+// Immutable view of the active gold price, shared by all readers
+public record GoldPriceSnapshot(Long id,
+                                BigDecimal buyPrice,
+                                BigDecimal sellPrice,
+                                String currency,
+                                LocalDateTime timestamp) {
+
+    private static final int MONEY_SCALE = 2;
+
+    // Same scale as the gold_prices columns, so a freshly saved price and a reloaded one are equal
+    public static GoldPriceSnapshot of(GoldPrice price) {
+        return new GoldPriceSnapshot(
+                price.getId(),
+                price.getBuyPrice().setScale(MONEY_SCALE, RoundingMode.HALF_UP),
+                price.getSellPrice().setScale(MONEY_SCALE, RoundingMode.HALF_UP),
+                price.getCurrency(),
+                price.getTimestamp()
+        );
+    }
+
+    // Keeps the JSON shape of the GoldPrice entity
+    public boolean isActive() {
+        return true;
+    }
+}
@@ -0,0 +1,160 @@
+package com.goldapp.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Reads import rows one at a time, in the formats the exports write: CSV with a header
+// line, or one JSON object per line. Field names are compared without case or
+// underscores, so first_name and firstName name the same field. A malformed row comes
+// back with an error instead of stopping the read.
+final class ImportReader implements Closeable {
+
+    record Row(long line, Map<String, String> fields, String error) {}
+
+    private final BufferedReader reader;
+    private final ExportFormat format;
+    private final ObjectMapper objectMapper;
+    private List<String> header;
+    private long line;
+    private boolean unterminated;
+
+    ImportReader(InputStream in, ExportFormat format, ObjectMapper objectMapper) {
+        this.reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        this.format = format;
+        this.objectMapper = objectMapper;
+    }
+
+    // Null at the end of the input
+    Row next() throws IOException {
+        return format == ExportFormat.CSV ? nextCsv() : nextNdjson();
+    }
+
+    static String normalize(String name) {
+        return name.replace("_", "").trim().toLowerCase(Locale.ROOT);
+    }
+
+    private Row nextCsv() throws IOException {
+        if (header == null) {
+            List<String> names = readCsvRecord();
+            if (names == null) {
+                return null;
+            }
+            names.set(0, names.get(0).replace("\uFEFF", ""));
+            header = names.stream().map(ImportReader::normalize).toList();
+        }
+        long start;
+        List<String> values;
+        do {
+            start = line + 1;
+            values = readCsvRecord();
+            if (values == null) {
+                return null;
+            }
+        } while (values.size() == 1 && values.get(0).isBlank());
+        if (unterminated) {
+            return new Row(start, Map.of(), "Unterminated quoted field");
+        }
+        if (values.size() != header.size()) {
+            return new Row(start, Map.of(), "Expected " + header.size() + " columns, found " + values.size());
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            fields.put(header.get(i), values.get(i));
+        }
+        return new Row(start, fields, null);
+    }
+
+    // One record, which may span lines inside a quoted field
+    private List<String> readCsvRecord() throws IOException {
+        String text = reader.readLine();
+        if (text == null) {
+            return null;
+        }
+        line++;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) {
+                    break;
+                }
+                text = reader.readLine();
+                if (text == null) {
+                    unterminated = true;
+                    break;
+                }
+                line++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = text.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private Row nextNdjson() throws IOException {
+        String text;
+        do {
+            text = reader.readLine();
+            if (text == null) {
+                return null;
+            }
+            line++;
+        } while (text.isBlank());
+
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(text);
+        } catch (IOException e) {
+            return new Row(line, Map.of(), "Malformed JSON");
+        }
+        if (!node.isObject()) {
+            return new Row(line, Map.of(), "Expected a JSON object");
+        }
+        Map<String, String> fields = new HashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            fields.put(normalize(entry.getKey()), entry.getValue().isNull() ? null : entry.getValue().asText());
+        }
+        return new Row(line, fields, null);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,395 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.GoldInventory;
+import com.goldapp.entity.InventoryMovement;
+import com.goldapp.entity.Transaction;
+import com.goldapp.repository.GoldInventoryRepository;
+import com.goldapp.repository.InventoryBatchRepository.MovementRow;
+import com.goldapp.service.InventoryMovementWriter.BookEntry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Live stock per carat, held in memory as fixed-point longs: micrograms and
+// cents per gram. Each carat has its own lock, so trades on different carats never
+// contend and no trade waits on a gold_inventory row lock.
+//
+// Removals are reserved against available stock at once and become permanent when
+// the caller's transaction commits (released on rollback). Additions and upward
+// adjustments count once they commit. Committed changes reach the database through
+// InventoryMovementWriter.
+//
+// The book is the stock of record, so it runs on one node only: a second book would
+// check availability against its own trades and sell the same grams twice. The writer
+// holds a PostgreSQL advisory lock from startup until its last write, and a second
+// node fails to start while it is held. Changes still queued when the process dies
+// without shutting down (within maxWaitMs of commit, or while retrying) are lost from
+// gold_inventory and inventory_movements; the trades themselves are committed, and a
+// recount with adjust() brings the stock back in line.
+@Service
+public class InventoryBook {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryBook.class);
+    private static final int GRAMS_SCALE = 6;
+    private static final int MONEY_SCALE = 2;
+
+    private final GoldInventoryRepository inventoryRepository;
+    private final InventoryMovementWriter movementWriter;
+
+    // Replaced as a whole by reload, never changed in place; null until first loaded
+    private volatile Ledgers ledgers;
+
+    public InventoryBook(GoldInventoryRepository inventoryRepository, InventoryMovementWriter movementWriter) {
+        this.inventoryRepository = inventoryRepository;
+        this.movementWriter = movementWriter;
+    }
+
+    // Stock figures for one carat at a point in time
+    public record StockLevel(int carat, BigDecimal quantity, BigDecimal reserved, BigDecimal available,
+                             BigDecimal averageCost) {}
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reload();
+    }
+
+    // Picks up created, re-carated or deleted inventory rows. Existing ledgers carry
+    // over, since the table may lag behind the write-behind, and readers keep using the
+    // previous maps until the new ones are complete.
+    public synchronized void reload() {
+        movementWriter.flush();
+        List<GoldInventory> rows = inventoryRepository.findAll();
+        Map<Long, CaratLedger> previous = ledgers != null ? ledgers.byInventoryId() : Map.of();
+        Map<Integer, CaratLedger> byCarat = new HashMap<>();
+        Map<Long, CaratLedger> byInventoryId = new HashMap<>();
+        for (GoldInventory row : rows) {
+            CaratLedger ledger = previous.get(row.getId());
+            if (ledger == null) {
+                ledger = new CaratLedger(row.getId(), row.getCarat(),
+                        toMicrograms(row.getQuantityInGrams()), toCents(row.getAverageBuyPrice()));
+            } else {
+                ledger.carat = row.getCarat();
+            }
+            byCarat.put(ledger.carat, ledger);
+            byInventoryId.put(ledger.inventoryId, ledger);
+        }
+        ledgers = new Ledgers(Map.copyOf(byCarat), Map.copyOf(byInventoryId));
+    }
+
+    public boolean hasCarat(int carat) {
+        return ledgers().byCarat().containsKey(carat);
+    }
+
+    public StockLevel getStockLevel(int carat) {
+        CaratLedger ledger = ledgers().byCarat().get(carat);
+        return ledger != null ? ledger.level() : null;
+    }
+
+    public BigDecimal getAvailable(int carat) {
+        CaratLedger ledger = ledgers().byCarat().get(carat);
+        return ledger != null ? ledger.level().available() : BigDecimal.ZERO;
+    }
+
+    // Counts once the caller commits. A carat whose row is created in the same
+    // transaction gets its ledger from the reload that runs first at commit.
+    public void add(int carat, BigDecimal grams, BigDecimal pricePerGram, String reason, Transaction transaction) {
+        long micrograms = toMicrograms(grams);
+        long priceCents = toCents(pricePerGram);
+        CaratLedger known = ledgers().byCarat().get(carat);
+        afterCommit(() -> {
+            CaratLedger ledger = committedLedger(known, carat, micrograms);
+            if (ledger == null) {
+                return;
+            }
+            synchronized (ledger) {
+                ledger.add(micrograms, priceCents);
+                record(ledger, InventoryMovement.MovementType.IN, micrograms, priceCents, reason, transaction);
+            }
+        }, null);
+    }
+
+    // Several purchases of one carat: the average cost is recomputed once over all of
+    // them, and each still gets its own movement
+    public void addAll(int carat, List<Transaction> purchases, String reason) {
+        long[] micrograms = new long[purchases.size()];
+        long[] priceCents = new long[purchases.size()];
+        for (int i = 0; i < purchases.size(); i++) {
+            micrograms[i] = toMicrograms(purchases.get(i).getGoldAmount());
+            priceCents[i] = toCents(purchases.get(i).getPricePerGram());
+        }
+        CaratLedger known = ledgers().byCarat().get(carat);
+        afterCommit(() -> {
+            CaratLedger ledger = committedLedger(known, carat, Arrays.stream(micrograms).sum());
+            if (ledger == null) {
+                return;
+            }
+            synchronized (ledger) {
+                ledger.averageCost = ledger.averageWith(micrograms, priceCents);
+                for (int i = 0; i < micrograms.length; i++) {
+                    ledger.quantity += micrograms[i];
+                    record(ledger, InventoryMovement.MovementType.IN, micrograms[i], priceCents[i], reason,
+                            purchases.get(i));
+                }
+            }
+        }, null);
+    }
+
+    public void remove(int carat, BigDecimal grams, String reason, Transaction transaction) {
+        Hold hold = hold(carat, grams);
+        afterCommit(() -> consume(hold, reason, transaction), () -> release(hold));
+    }
+
+    // Sets aside stock until it is released or removed with removeHeld
+    public Hold hold(int carat, BigDecimal grams) {
+        CaratLedger ledger = requireLedger(carat);
+        long micrograms = toMicrograms(grams);
+        reserve(ledger, micrograms);
+        return new Hold(ledger, micrograms);
+    }
+
+    public void release(Hold hold) {
+        synchronized (hold.ledger) {
+            hold.ledger.reserved -= hold.micrograms;
+        }
+    }
+
+    // The hold is consumed once the caller commits and left in place if it rolls back
+    public void removeHeld(Hold hold, String reason, Transaction transaction) {
+        afterCommit(() -> consume(hold, reason, transaction), null);
+    }
+
+    // Sets the counted quantity; returns false when it already matches
+    public boolean adjust(Long inventoryId, BigDecimal newQuantity, String reason) {
+        CaratLedger ledger = ledgers().byInventoryId().get(inventoryId);
+        if (ledger == null) {
+            throw new RuntimeException("Inventory not found: " + inventoryId);
+        }
+        long target = toMicrograms(newQuantity);
+        long difference;
+        synchronized (ledger) {
+            difference = target - ledger.quantity;
+            if (difference < 0 && ledger.quantity - ledger.reserved < -difference) {
+                throw new RuntimeException("Cannot adjust below reserved stock for " + ledger.carat + " carat gold");
+            }
+            if (difference < 0) {
+                ledger.reserved -= difference;
+            }
+        }
+        if (difference == 0) {
+            return false;
+        }
+        long delta = difference;
+        afterCommit(() -> {
+            synchronized (ledger) {
+                if (delta < 0) {
+                    ledger.reserved += delta;
+                }
+                ledger.quantity += delta;
+                InventoryMovement.MovementType type = delta > 0
+                        ? InventoryMovement.MovementType.ADJUSTMENT_IN : InventoryMovement.MovementType.ADJUSTMENT_OUT;
+                record(ledger, type, Math.abs(delta), ledger.averageCost, reason, null);
+            }
+        }, delta < 0 ? () -> release(new Hold(ledger, -delta)) : null);
+        return true;
+    }
+
+    // For inventory rows created, re-carated or deleted in the caller's transaction
+    public void reloadAfterCommit() {
+        afterCommit(this::reload, null);
+    }
+
+    public BigDecimal getQuantity(Long inventoryId) {
+        CaratLedger ledger = ledgers().byInventoryId().get(inventoryId);
+        return ledger != null ? ledger.level().quantity() : BigDecimal.ZERO;
+    }
+
+    private Ledgers ledgers() {
+        Ledgers current = ledgers;
+        if (current == null) {
+            reload();
+            current = ledgers;
+        }
+        return current;
+    }
+
+    private CaratLedger requireLedger(int carat) {
+        CaratLedger ledger = ledgers().byCarat().get(carat);
+        if (ledger == null) {
+            throw new RuntimeException("No inventory found for " + carat + " carat gold");
+        }
+        return ledger;
+    }
+
+    // Runs after commit, where throwing would lose the stock without a trace. Only a row
+    // deleted before the commit leaves nothing to add to; that is logged for a recount.
+    private CaratLedger committedLedger(CaratLedger known, int carat, long micrograms) {
+        if (known != null) {
+            return known;
+        }
+        CaratLedger ledger = ledgers().byCarat().get(carat);
+        if (ledger == null) {
+            reload();
+            ledger = ledgers().byCarat().get(carat);
+        }
+        if (ledger == null) {
+            logger.error("Committed stock of {} g for {} carat gold has no inventory row; it was not booked",
+                    fromMicrograms(micrograms), carat);
+        }
+        return ledger;
+    }
+
+    private void reserve(CaratLedger ledger, long micrograms) {
+        synchronized (ledger) {
+            long available = ledger.quantity - ledger.reserved;
+            if (available < micrograms) {
+                throw new IllegalArgumentException("Insufficient stock. Available: " + fromMicrograms(available)
+                        + ", Requested: " + fromMicrograms(micrograms));
+            }
+            ledger.reserved += micrograms;
+        }
+    }
+
+    private void consume(Hold hold, String reason, Transaction transaction) {
+        CaratLedger ledger = hold.ledger;
+        synchronized (ledger) {
+            ledger.reserved -= hold.micrograms;
+            ledger.quantity -= hold.micrograms;
+            record(ledger, InventoryMovement.MovementType.OUT, hold.micrograms, ledger.averageCost, reason, transaction);
+        }
+    }
+
+    // Called under the ledger lock, so entries for one carat are queued in commit order
+    private void record(CaratLedger ledger, InventoryMovement.MovementType type, long micrograms, long priceCents,
+                        String reason, Transaction transaction) {
+        MovementRow movement = new MovementRow(
+                ledger.inventoryId,
+                transaction != null ? transaction.getId() : null,
+                type.name(),
+                fromMicrograms(micrograms),
+                fromCents(priceCents),
+                fromMicrograms(ledger.quantity),
+                reason,
+                LocalDateTime.now());
+        movementWriter.enqueue(new BookEntry(ledger.carat, movement));
+    }
+
+    private static void afterCommit(Runnable onCommit, Runnable onRollback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            onCommit.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    onCommit.run();
+                } else if (onRollback != null) {
+                    onRollback.run();
+                }
+            }
+        });
+    }
+
+    static long toMicrograms(BigDecimal grams) {
+        return grams.setScale(GRAMS_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount.setScale(MONEY_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    static BigDecimal fromMicrograms(long micrograms) {
+        return BigDecimal.valueOf(micrograms, GRAMS_SCALE);
+    }
+
+    static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, MONEY_SCALE);
+    }
+
+    private record Ledgers(Map<Integer, CaratLedger> byCarat, Map<Long, CaratLedger> byInventoryId) {}
+
+    // Stock set aside on one ledger; follows the ledger if its row is re-carated
+    public static final class Hold {
+        private final CaratLedger ledger;
+        private final long micrograms;
+
+        private Hold(CaratLedger ledger, long micrograms) {
+            this.ledger = ledger;
+            this.micrograms = micrograms;
+        }
+
+        public int carat() {
+            return ledger.carat;
+        }
+
+        public BigDecimal grams() {
+            return fromMicrograms(micrograms);
+        }
+    }
+
+    // Guarded by its own monitor
+    private static final class CaratLedger {
+        private final Long inventoryId;
+        private volatile int carat;
+        private long quantity;     // committed stock, micrograms
+        private long reserved;     // held for uncommitted removals, micrograms
+        private long averageCost;  // weighted average buy price, cents per gram
+
+        private CaratLedger(Long inventoryId, int carat, long quantity, long averageCost) {
+            this.inventoryId = inventoryId;
+            this.carat = carat;
+            this.quantity = quantity;
+            this.averageCost = averageCost;
+        }
+
+        // Same rounding as GoldInventory.addStock: HALF_UP to whole cents
+        private void add(long micrograms, long priceCents) {
+            long total = quantity + micrograms;
+            if (total > 0) {
+                try {
+                    long value = Math.addExact(Math.multiplyExact(quantity, averageCost),
+                            Math.multiplyExact(micrograms, priceCents));
+                    averageCost = Math.addExact(value, total / 2) / total;
+                } catch (ArithmeticException overflow) {
+                    BigInteger value = BigInteger.valueOf(quantity).multiply(BigInteger.valueOf(averageCost))
+                            .add(BigInteger.valueOf(micrograms).multiply(BigInteger.valueOf(priceCents)));
+                    averageCost = new BigDecimal(value).divide(BigDecimal.valueOf(total), 0, RoundingMode.HALF_UP)
+                            .longValueExact();
+                }
+            }
+            quantity = total;
+        }
+
+        // Average after adding all the lots, rounded once rather than lot by lot
+        private long averageWith(long[] micrograms, long[] priceCents) {
+            long total = quantity;
+            BigInteger value = BigInteger.valueOf(quantity).multiply(BigInteger.valueOf(averageCost));
+            for (int i = 0; i < micrograms.length; i++) {
+                total = Math.addExact(total, micrograms[i]);
+                value = value.add(BigInteger.valueOf(micrograms[i]).multiply(BigInteger.valueOf(priceCents[i])));
+            }
+            if (total <= 0) {
+                return averageCost;
+            }
+            return new BigDecimal(value).divide(BigDecimal.valueOf(total), 0, RoundingMode.HALF_UP).longValueExact();
+        }
+
+        private synchronized StockLevel level() {
+            return new StockLevel(carat, fromMicrograms(quantity), fromMicrograms(reserved),
+                    fromMicrograms(quantity - reserved), fromCents(averageCost));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.goldapp.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// One carat's stock row without its movement history; keeps the JSON fields of GoldInventory
+public record InventoryItemSummary(Long id,
+                                   Integer carat,
+                                   BigDecimal quantityInGrams,
+                                   BigDecimal averageBuyPrice,
+                                   BigDecimal minimumStock,
+                                   BigDecimal maximumStock,
+                                   LocalDateTime lastUpdated,
+                                   String notes,
+                                   boolean lowStock,
+                                   boolean overStock,
+                                   BigDecimal inventoryValue) {
+
+    public static final String SELECT =
+            "SELECT new com.goldapp.service.InventoryItemSummary(gi.id, gi.carat, gi.quantityInGrams, " +
+            "gi.averageBuyPrice, gi.minimumStock, gi.maximumStock, gi.lastUpdated, gi.notes) FROM GoldInventory gi ";
+
+    // Used by the constructor expression; the flags are derived here instead of in SQL
+    public InventoryItemSummary(Long id, Integer carat, BigDecimal quantityInGrams, BigDecimal averageBuyPrice,
+                                BigDecimal minimumStock, BigDecimal maximumStock, LocalDateTime lastUpdated,
+                                String notes) {
+        this(id, carat, quantityInGrams, averageBuyPrice, minimumStock, maximumStock, lastUpdated, notes,
+                minimumStock != null && quantityInGrams.compareTo(minimumStock) <= 0,
+                maximumStock != null && quantityInGrams.compareTo(maximumStock) > 0,
+                quantityInGrams.multiply(averageBuyPrice));
+    }
+}
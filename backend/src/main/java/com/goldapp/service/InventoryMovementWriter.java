@@ -0,0 +1,341 @@
+package com.goldapp.service;
+
+import com.goldapp.config.HibernateCacheConfig;
+import com.goldapp.entity.GoldInventory;
+import com.goldapp.entity.InventoryMovement;
+import com.goldapp.repository.InventoryBatchRepository;
+import com.goldapp.repository.InventoryBatchRepository.MovementRow;
+import com.goldapp.repository.InventoryBatchRepository.StockDelta;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Write-behind for the inventory book: committed changes are queued and written to
+// inventory_movements, gold_inventory and the daily rollups in one batch per commit.
+// A failed batch is retried row by row with exponential backoff, so one bad entry
+// holds up no others; an entry that keeps failing is parked in the log (ERROR, with
+// the full movement) and reported by the health endpoint. While the database itself
+// is unreachable entries wait without using up their attempts.
+@Service
+public class InventoryMovementWriter implements HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(InventoryMovementWriter.class);
+    private static final int MONEY_SCALE = 2;
+    // Entries were given up on; their stock changes are missing from gold_inventory
+    private static final Status DEGRADED = new Status("DEGRADED");
+
+    private final InventoryBatchRepository batchRepository;
+    private final DailyRollupService dailyRollupService;
+    private final TransactionTemplate newTransaction;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${app.inventoryWriter.maxBatchSize:500}")
+    private int maxBatchSize;
+
+    @Value("${app.inventoryWriter.maxWaitMs:50}")
+    private long maxWaitMs;
+
+    @Value("${app.inventoryWriter.retryDelayMs:1000}")
+    private long retryDelayMs;
+
+    @Value("${app.inventoryWriter.retryMaxMs:300000}")
+    private long retryMaxMs;
+
+    @Value("${app.inventoryWriter.maxAttempts:8}")
+    private int maxAttempts;
+
+    // Unbounded: entries are already committed and must not be dropped
+    private final LinkedBlockingQueue<BookEntry> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    // Entries waiting for their next attempt; guarded by writeLock
+    private final List<Retry> retries = new ArrayList<>();
+    private volatile int retrying;
+    private final AtomicLong parked = new AtomicLong();
+    private Thread worker;
+    private volatile boolean running;
+    // Keeps every other node from starting an inventory book (see InventoryBook)
+    private Connection bookLock;
+
+    public InventoryMovementWriter(InventoryBatchRepository batchRepository,
+                                   DailyRollupService dailyRollupService,
+                                   PlatformTransactionManager transactionManager,
+                                   EntityManagerFactory entityManagerFactory) {
+        this.batchRepository = batchRepository;
+        this.dailyRollupService = dailyRollupService;
+        this.entityManagerFactory = entityManagerFactory;
+        // flush() also runs from after-commit callbacks, which must not join the finished transaction
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // One committed change to the stock of a carat
+    public record BookEntry(int carat, MovementRow movement) {}
+
+    private record Retry(BookEntry entry, int attempts, long dueAt) {}
+
+    @PostConstruct
+    public void start() throws SQLException {
+        bookLock = batchRepository.lockBook();
+        running = true;
+        worker = new Thread(this::drainLoop, "inventory-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+        writeLock.lock();
+        try {
+            List<BookEntry> fresh = new ArrayList<>();
+            queue.drainTo(fresh);
+            writeAll(fresh, true);
+            retries.forEach(retry -> logger.error("Inventory write-behind stopped before writing {}; "
+                    + "the stock change is not in the database", retry.entry()));
+        } finally {
+            writeLock.unlock();
+            closeBookLock();
+        }
+    }
+
+    // Only after the last write, so the next node's book reads every change of this one
+    private void closeBookLock() {
+        if (bookLock == null) {
+            return;
+        }
+        try {
+            bookLock.close();
+        } catch (SQLException e) {
+            logger.warn("Could not release the inventory book lock", e);
+        }
+    }
+
+    public void enqueue(BookEntry entry) {
+        queue.add(entry);
+    }
+
+    // Writes everything queued so far before returning; what fails stays queued for a retry
+    public void flush() {
+        writeLock.lock();
+        try {
+            List<BookEntry> fresh = new ArrayList<>();
+            queue.drainTo(fresh);
+            writeAll(fresh, false);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    @Override
+    public Health health() {
+        long parkedCount = parked.get();
+        return (parkedCount > 0 ? Health.status(DEGRADED) : Health.up())
+                .withDetail("queued", queue.size())
+                .withDetail("retrying", retrying)
+                .withDetail("parked", parkedCount)
+                .build();
+    }
+
+    private void drainLoop() {
+        List<BookEntry> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                BookEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    if (retrying > 0) {
+                        writeLocked(List.of());
+                    }
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    BookEntry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                writeLocked(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                // Shutting down; stop() writes what is left
+                queue.addAll(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeLocked(List<BookEntry> fresh) {
+        writeLock.lock();
+        try {
+            writeAll(fresh, false);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Called under writeLock. Due retries go first, so a carat's entries mostly keep their
+    // order; one written after a later entry only shifts the average cost by the rounding.
+    private void writeAll(List<BookEntry> fresh, boolean includeWaiting) {
+        long now = System.nanoTime();
+        List<Retry> batch = new ArrayList<>(retries.size() + fresh.size());
+        for (Iterator<Retry> it = retries.iterator(); it.hasNext(); ) {
+            Retry retry = it.next();
+            if (includeWaiting || retry.dueAt() - now <= 0) {
+                batch.add(retry);
+                it.remove();
+            }
+        }
+        fresh.forEach(entry -> batch.add(new Retry(entry, 0, now)));
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            write(batch.stream().map(Retry::entry).toList());
+        } catch (RuntimeException e) {
+            if (isUnavailable(e)) {
+                logger.warn("Inventory write-behind of {} entries failed, database unavailable; retrying", batch.size(), e);
+                long dueAt = now + TimeUnit.MILLISECONDS.toNanos(retryDelayMs);
+                batch.forEach(retry -> retries.add(new Retry(retry.entry(), retry.attempts(), dueAt)));
+            } else if (batch.size() == 1) {
+                failed(batch.get(0), e);
+            } else {
+                // Isolate the entry that broke the batch; the rest go through on their own
+                logger.warn("Inventory write-behind of {} entries failed, retrying row by row", batch.size(), e);
+                for (Retry retry : batch) {
+                    try {
+                        write(List.of(retry.entry()));
+                    } catch (RuntimeException rowError) {
+                        failed(retry, rowError);
+                    }
+                }
+            }
+        } finally {
+            retrying = retries.size();
+        }
+    }
+
+    private void failed(Retry retry, RuntimeException error) {
+        int attempts = retry.attempts() + 1;
+        if (attempts >= maxAttempts) {
+            parked.incrementAndGet();
+            logger.error("Inventory write-behind gave up on {} after {} attempts; "
+                    + "the stock change is not in the database", retry.entry(), attempts, error);
+            return;
+        }
+        // 1s, 2s, 4s, ... capped at retryMaxMs
+        long delayMs = Math.min(retryMaxMs, retryDelayMs << Math.min(attempts - 1, 30));
+        logger.warn("Inventory write-behind of {} failed (attempt {}), retrying in {} ms",
+                retry.entry(), attempts, delayMs, error);
+        retries.add(new Retry(retry.entry(), attempts, System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delayMs)));
+    }
+
+    // No connection or a transient failure: says nothing about the entries themselves
+    private static boolean isUnavailable(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+
+    private void write(List<BookEntry> batch) {
+        // Sorted by id so concurrent writers lock gold_inventory rows in the same order
+        Map<Long, List<StockDelta>> stock = new TreeMap<>();
+        List<MovementRow> movements = new ArrayList<>(batch.size());
+        Map<RollupKey, RollupDelta> rollups = new LinkedHashMap<>();
+        for (BookEntry entry : batch) {
+            MovementRow movement = entry.movement();
+            movements.add(movement);
+            addStockDelta(stock.computeIfAbsent(movement.inventoryId(), id -> new ArrayList<>()), movement);
+            rollups.computeIfAbsent(new RollupKey(movement.createdAt().toLocalDate(), entry.carat()),
+                    key -> new RollupDelta()).add(movement);
+        }
+
+        newTransaction.executeWithoutResult(status -> {
+            batchRepository.insertMovements(movements);
+            batchRepository.updateStock(stock.values().stream().flatMap(List::stream).toList());
+            rollups.forEach((key, delta) -> dailyRollupService.inventoryMovementsRecorded(
+                    key.day(), key.carat(), delta.count, delta.quantityIn, delta.quantityOut, delta.valueIn, delta.valueOut));
+        });
+        // The stock rows bypassed Hibernate, so their second-level cache entries are stale,
+        // and so are cached inventory queries, which hold the row values themselves
+        Cache cache = entityManagerFactory.getCache();
+        stock.keySet().forEach(id -> cache.evict(GoldInventory.class, id));
+        cache.unwrap(org.hibernate.Cache.class).evictQueryRegion(HibernateCacheConfig.INVENTORY_QUERIES);
+    }
+
+    // Runs of purchases, or of other changes, merge into one delta. A purchase after a
+    // sale starts a new one: the average it blends into depends on the stock in between.
+    private static void addStockDelta(List<StockDelta> deltas, MovementRow movement) {
+        InventoryMovement.MovementType type = InventoryMovement.MovementType.valueOf(movement.movementType());
+        boolean purchase = type == InventoryMovement.MovementType.IN;
+        BigDecimal quantity = type.isIncoming() ? movement.quantity() : movement.quantity().negate();
+        BigDecimal grams = purchase ? movement.quantity() : BigDecimal.ZERO;
+        BigDecimal value = purchase ? movement.quantity().multiply(movement.pricePerGram()) : BigDecimal.ZERO;
+        if (!deltas.isEmpty()) {
+            StockDelta last = deltas.get(deltas.size() - 1);
+            if ((last.purchasedGrams().signum() > 0) == purchase) {
+                deltas.set(deltas.size() - 1, new StockDelta(last.inventoryId(), last.quantity().add(quantity),
+                        last.purchasedGrams().add(grams), last.purchasedValue().add(value), movement.createdAt()));
+                return;
+            }
+        }
+        deltas.add(new StockDelta(movement.inventoryId(), quantity, grams, value, movement.createdAt()));
+    }
+
+    private record RollupKey(LocalDate day, int carat) {}
+
+    private static final class RollupDelta {
+        long count;
+        BigDecimal quantityIn = BigDecimal.ZERO;
+        BigDecimal quantityOut = BigDecimal.ZERO;
+        BigDecimal valueIn = BigDecimal.ZERO;
+        BigDecimal valueOut = BigDecimal.ZERO;
+
+        void add(MovementRow movement) {
+            BigDecimal price = movement.pricePerGram() != null ? movement.pricePerGram() : BigDecimal.ZERO;
+            BigDecimal value = movement.quantity().multiply(price).setScale(MONEY_SCALE, RoundingMode.HALF_UP);
+            count++;
+            if (InventoryMovement.MovementType.valueOf(movement.movementType()).isIncoming()) {
+                quantityIn = quantityIn.add(movement.quantity());
+                valueIn = valueIn.add(value);
+            } else {
+                quantityOut = quantityOut.add(movement.quantity());
+                valueOut = valueOut.add(value);
+            }
+        }
+    }
+}
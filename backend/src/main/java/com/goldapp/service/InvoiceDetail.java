@@ -0,0 +1,46 @@
+package com.goldapp.service;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import com.goldapp.entity.Client;
+import com.goldapp.entity.Invoice;
+import com.goldapp.entity.InvoiceItem;
+import com.goldapp.entity.Provider;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// A single invoice with its lines, mapped from an entity graph fetched in one statement
+// (client, provider and items joined). Serialized flat: the summary fields sit beside items.
+public record InvoiceDetail(@JsonUnwrapped InvoiceSummary summary,
+                            String customerAddress,
+                            BigDecimal taxRate,
+                            String notes,
+                            String legalTerms,
+                            List<Line> items) {
+
+    public record Line(Long id, String description, Integer goldCarat, BigDecimal quantity,
+                       BigDecimal unitPrice, BigDecimal total, String itemDetails) {}
+
+    // Expects client, provider and items to be fetched already; the transaction is only read by id
+    public static InvoiceDetail of(Invoice invoice) {
+        Client client = invoice.getClient();
+        Provider provider = invoice.getProvider();
+        List<InvoiceItem> items = invoice.getItems() != null ? invoice.getItems() : List.of();
+        InvoiceSummary summary = new InvoiceSummary(invoice.getId(), invoice.getInvoiceNumber(),
+                invoice.getInvoiceType(), invoice.getStatus(),
+                invoice.getTransaction() != null ? invoice.getTransaction().getId() : null,
+                client != null ? client.getId() : null,
+                client != null ? client.getFirstName() + " " + client.getLastName() : null,
+                provider != null ? provider.getId() : null,
+                provider != null ? provider.getFirstName() + " " + provider.getLastName() : null,
+                invoice.getCustomerTaxId(), invoice.getSubtotal(), invoice.getTaxAmount(), invoice.getTotal(),
+                invoice.getCurrency(), invoice.getPaymentMethod(),
+                invoice.getIssueDate(), invoice.getDueDate(), invoice.getPaidDate(), items.size());
+        return new InvoiceDetail(summary, invoice.getCustomerAddress(), invoice.getTaxRate(), invoice.getNotes(),
+                invoice.getLegalTerms(),
+                items.stream()
+                        .map(item -> new Line(item.getId(), item.getDescription(), item.getGoldCarat(),
+                                item.getQuantity(), item.getUnitPrice(), item.getTotal(), item.getItemDetails()))
+                        .toList());
+    }
+}
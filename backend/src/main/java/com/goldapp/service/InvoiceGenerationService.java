@@ -0,0 +1,377 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.Invoice;
+import com.goldapp.entity.InvoiceItem;
+import com.goldapp.entity.InvoiceOutboxEntry;
+import com.goldapp.entity.Transaction;
+import com.goldapp.repository.InvoiceBatchRepository;
+import com.goldapp.repository.InvoiceBatchRepository.InvoiceRow;
+import com.goldapp.repository.InvoiceBatchRepository.ItemRow;
+import com.goldapp.repository.InvoiceBatchRepository.Lease;
+import com.goldapp.repository.InvoiceOutboxRepository;
+import com.goldapp.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Invoices for client and provider trades, generated off the trade path. A trade
+// writes an invoice_outbox row in its own transaction; a dispatcher claims due rows
+// and hands them in batches to a bounded worker pool, which writes the invoices and
+// their items with JDBC batches. A failed batch is retried row by row with
+// exponential backoff; a row that keeps failing is parked as FAILED.
+@Service
+public class InvoiceGenerationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvoiceGenerationService.class);
+    private static final int MONEY_SCALE = 2;
+    private static final int MAX_ERROR_LENGTH = 500;
+
+    private final InvoiceOutboxRepository outboxRepository;
+    private final InvoiceBatchRepository batchRepository;
+    private final TransactionRepository transactionRepository;
+    private final InvoiceService invoiceService;
+    private final InvoiceNumberAllocator invoiceNumberAllocator;
+    private final DailyRollupService dailyRollupService;
+    private final TransactionTemplate newTransaction;
+
+    @Value("${app.invoicing.workers:2}")
+    private int workers;
+
+    @Value("${app.invoicing.batchSize:50}")
+    private int batchSize;
+
+    @Value("${app.invoicing.pollMs:1000}")
+    private long pollMs;
+
+    // A claimed row becomes due again after this, should its worker die mid-batch
+    @Value("${app.invoicing.leaseMs:60000}")
+    private long leaseMs;
+
+    @Value("${app.invoicing.maxAttempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.invoicing.retryBaseMs:1000}")
+    private long retryBaseMs;
+
+    @Value("${app.invoicing.retryMaxMs:300000}")
+    private long retryMaxMs;
+
+    private final Semaphore wakeups = new Semaphore(0);
+    private ThreadPoolExecutor pool;
+    // Batches running or queued; the dispatcher stops claiming when the pool is full
+    private Semaphore slots;
+    private Thread dispatcher;
+    private volatile boolean running;
+
+    public InvoiceGenerationService(InvoiceOutboxRepository outboxRepository,
+                                    InvoiceBatchRepository batchRepository,
+                                    TransactionRepository transactionRepository,
+                                    InvoiceService invoiceService,
+                                    InvoiceNumberAllocator invoiceNumberAllocator,
+                                    DailyRollupService dailyRollupService,
+                                    PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.batchRepository = batchRepository;
+        this.transactionRepository = transactionRepository;
+        this.invoiceService = invoiceService;
+        this.invoiceNumberAllocator = invoiceNumberAllocator;
+        this.dailyRollupService = dailyRollupService;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void start() {
+        int size = Math.max(1, workers);
+        AtomicInteger threadNumber = new AtomicInteger();
+        pool = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(size), task -> {
+            Thread thread = new Thread(task, "invoice-worker-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        slots = new Semaphore(2 * size);
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "invoice-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    // Claimed rows left unfinished become due again when their lease runs out
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        pool.shutdown();
+        pool.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    // Called inside the trade's transaction: the row commits or rolls back with the trade
+    public void enqueue(Transaction transaction) {
+        outboxRepository.save(new InvoiceOutboxEntry(transaction.getId()));
+        afterCommit(wakeups::release);
+    }
+
+    public void enqueueAll(List<Transaction> transactions) {
+        outboxRepository.saveAll(transactions.stream().map(tx -> new InvoiceOutboxEntry(tx.getId())).toList());
+        afterCommit(wakeups::release);
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                // Woken by a commit, or polls for retries and other nodes' trades
+                wakeups.tryAcquire(pollMs, TimeUnit.MILLISECONDS);
+                wakeups.drainPermits();
+                dispatchDue();
+            } catch (InterruptedException e) {
+                // Shutting down
+            } catch (RuntimeException e) {
+                logger.error("Invoice dispatch failed", e);
+            }
+        }
+    }
+
+    private void dispatchDue() throws InterruptedException {
+        while (running) {
+            LocalDateTime now = LocalDateTime.now();
+            List<InvoiceOutboxEntry> due = outboxRepository.findDue(now, PageRequest.of(0, batchSize));
+            if (due.isEmpty()) {
+                return;
+            }
+            slots.acquire();
+            List<Long> claimed;
+            try {
+                claimed = batchRepository.claim(due.stream().map(InvoiceOutboxEntry::getId).toList(),
+                        now, now.plusNanos(TimeUnit.MILLISECONDS.toNanos(leaseMs)));
+            } catch (RuntimeException e) {
+                slots.release();
+                throw e;
+            }
+            Set<Long> claimedIds = new HashSet<>(claimed);
+            List<Claim> batch = due.stream()
+                    .filter(entry -> claimedIds.contains(entry.getId()))
+                    .map(entry -> new Claim(entry.getId(), entry.getTransactionId(), entry.getAttempts() + 1))
+                    .toList();
+            if (batch.isEmpty()) {
+                slots.release();
+            } else {
+                pool.execute(() -> {
+                    try {
+                        process(batch);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+            if (due.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    private record Claim(Long outboxId, Long transactionId, int attempt) {
+
+        Lease lease() {
+            return new Lease(outboxId, attempt);
+        }
+    }
+
+    // A claimed row outlived its lease and was claimed again; that claim finishes it
+    private static final class LeaseLostException extends RuntimeException {
+        LeaseLostException(int lost) {
+            super(lost + " invoice outbox rows were claimed again");
+        }
+    }
+
+    private void process(List<Claim> batch) {
+        try {
+            newTransaction.executeWithoutResult(status -> generate(batch));
+        } catch (LeaseLostException e) {
+            if (batch.size() > 1) {
+                // The rows still held go through on their own
+                batch.forEach(claim -> process(List.of(claim)));
+            } else {
+                logger.debug("Invoice for transaction {} left to a later claim", batch.get(0).transactionId());
+            }
+        } catch (RuntimeException e) {
+            if (batch.size() > 1) {
+                // Isolate the row that broke the batch; the rest go through on their own
+                logger.warn("Invoice batch of {} failed, retrying row by row", batch.size(), e);
+                batch.forEach(claim -> process(List.of(claim)));
+            } else if (e instanceof DuplicateKeyException && completeIfInvoiced(batch.get(0))) {
+                logger.debug("Transaction {} was invoiced by another claim", batch.get(0).transactionId());
+            } else {
+                reschedule(batch.get(0), e);
+            }
+        }
+    }
+
+    // The unique index on invoices.transaction_id turned away a second invoice for the trade
+    private boolean completeIfInvoiced(Claim claim) {
+        try {
+            return Boolean.TRUE.equals(newTransaction.execute(status -> {
+                if (batchRepository.findInvoicedTransactionIds(List.of(claim.transactionId())).isEmpty()) {
+                    return false;
+                }
+                batchRepository.complete(List.of(claim.lease()), LocalDateTime.now());
+                return true;
+            }));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private void generate(List<Claim> batch) {
+        // Completed first: the row locks keep a dispatcher that re-claims an expired lease
+        // waiting until this commits, after which the row is no longer PENDING
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> completed = batchRepository.complete(batch.stream().map(Claim::lease).toList(), now);
+        if (completed.size() < batch.size()) {
+            throw new LeaseLostException(batch.size() - completed.size());
+        }
+
+        List<Long> transactionIds = batch.stream().map(Claim::transactionId).toList();
+        Map<Long, Transaction> transactions = transactionRepository.findWithPartiesByIdIn(transactionIds).stream()
+                .collect(Collectors.toMap(Transaction::getId, Function.identity()));
+        // A retry after a lost commit acknowledgement must not invoice the trade twice
+        Set<Long> invoiced = new HashSet<>(batchRepository.findInvoicedTransactionIds(transactionIds));
+
+        List<Invoice> invoices = new ArrayList<>(batch.size());
+        for (Claim claim : batch) {
+            Transaction transaction = transactions.get(claim.transactionId());
+            if (transaction == null) {
+                throw new RuntimeException("Transaction not found: " + claim.transactionId());
+            }
+            if (!invoiced.contains(claim.transactionId())) {
+                invoices.add(invoiceService.buildInvoiceFromTransaction(transaction));
+            }
+        }
+
+        // Numbers are taken only once every invoice in the batch has been built, so a bad
+        // trade costs no numbers; one that fails in the insert itself leaves a gap
+        List<InvoiceRow> rows = new ArrayList<>(invoices.size());
+        Map<RollupKey, RollupDelta> rollups = new LinkedHashMap<>();
+        for (Invoice invoice : invoices) {
+            InvoiceRow row = toRow(invoice, invoiceNumberAllocator.nextInvoiceNumber(), now);
+            rows.add(row);
+            RollupKey key = new RollupKey(now.toLocalDate(), Invoice.InvoiceType.valueOf(row.invoiceType()),
+                    Invoice.InvoiceStatus.valueOf(row.status()));
+            rollups.computeIfAbsent(key, k -> new RollupDelta()).add(row.total());
+        }
+
+        batchRepository.insertInvoices(rows);
+        rollups.forEach((key, delta) -> dailyRollupService.invoicesAdded(
+                key.day(), key.type(), key.status(), delta.count, delta.amount));
+    }
+
+    private InvoiceRow toRow(Invoice invoice, String invoiceNumber, LocalDateTime issueDate) {
+        List<ItemRow> items = invoice.getItems().stream()
+                .map(item -> new ItemRow(item.getDescription(), item.getQuantity(), money(item.getUnitPrice()),
+                        money(itemTotal(item)), item.getGoldCarat()))
+                .toList();
+        return new InvoiceRow(
+                invoiceNumber,
+                invoice.getClient() != null ? invoice.getClient().getId() : null,
+                invoice.getProvider() != null ? invoice.getProvider().getId() : null,
+                invoice.getTransaction().getId(),
+                invoice.getInvoiceType().name(),
+                money(invoice.getSubtotal()),
+                invoice.getTaxRate(),
+                money(invoice.getTaxAmount()),
+                money(invoice.getTotal()),
+                invoice.getCurrency(),
+                invoice.getStatus().name(),
+                invoice.getLegalTerms(),
+                invoice.getCustomerTaxId(),
+                invoice.getCustomerAddress(),
+                issueDate,
+                // Same default payment term as Invoice.onCreate
+                invoice.getDueDate() != null ? invoice.getDueDate() : issueDate.plusDays(30),
+                items);
+    }
+
+    private void reschedule(Claim claim, RuntimeException error) {
+        String message = error.getMessage() != null ? error.getMessage() : error.getClass().getName();
+        if (message.length() > MAX_ERROR_LENGTH) {
+            message = message.substring(0, MAX_ERROR_LENGTH);
+        }
+        try {
+            if (claim.attempt() >= maxAttempts) {
+                logger.error("Invoice for transaction {} failed {} times, giving up", claim.transactionId(), claim.attempt(), error);
+                batchRepository.reschedule(claim.lease(), InvoiceOutboxEntry.Status.FAILED.name(), LocalDateTime.now(), message);
+                return;
+            }
+            // 1s, 2s, 4s, ... capped at retryMaxMs
+            long delayMs = Math.min(retryMaxMs, retryBaseMs << Math.min(claim.attempt() - 1, 30));
+            logger.warn("Invoice for transaction {} failed (attempt {}), retrying in {} ms",
+                    claim.transactionId(), claim.attempt(), delayMs, error);
+            batchRepository.reschedule(claim.lease(), InvoiceOutboxEntry.Status.PENDING.name(),
+                    LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(delayMs)), message);
+        } catch (RuntimeException e) {
+            // The lease still runs out, so the row is retried anyway
+            logger.error("Could not reschedule invoice for transaction {}", claim.transactionId(), e);
+        }
+    }
+
+    private static BigDecimal itemTotal(InvoiceItem item) {
+        return item.getTotal() != null ? item.getTotal() : item.getQuantity().multiply(item.getUnitPrice());
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value != null ? value.setScale(MONEY_SCALE, RoundingMode.HALF_UP) : null;
+    }
+
+    private record RollupKey(LocalDate day, Invoice.InvoiceType type, Invoice.InvoiceStatus status) {}
+
+    private static final class RollupDelta {
+        long count;
+        BigDecimal amount = BigDecimal.ZERO;
+
+        void add(BigDecimal total) {
+            count++;
+            amount = amount.add(total);
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
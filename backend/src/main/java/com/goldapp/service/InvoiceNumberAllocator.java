@@ -0,0 +1,174 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.InvoiceNumberSequence;
+import com.goldapp.repository.InvoiceNumberSequenceRepository;
+import com.goldapp.repository.InvoiceRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Hands out monthly invoice numbers (YYYY-MM-NNNNNN) from blocks reserved on a
+// row-locked counter, so most invoices get their number without a query.
+// Unused numbers are handed back on shutdown and at month change; only a crash
+// or a rolled back invoice leaves a gap.
+@Service
+public class InvoiceNumberAllocator {
+
+    private final InvoiceNumberSequenceRepository sequenceRepository;
+    private final InvoiceRepository invoiceRepository;
+    private final TransactionTemplate newTransaction;
+    private final int blockSize;
+
+    // Current block: [next, limit) of period; guarded by lock, which is only held
+    // for the in-memory handout, never across a database round trip
+    private final ReentrantLock lock = new ReentrantLock();
+    private String period;
+    private long next;
+    private long limit;
+
+    // One reservation at a time; callers that find the block empty wait here, not on lock
+    private final ReentrantLock refillLock = new ReentrantLock();
+
+    public InvoiceNumberAllocator(InvoiceNumberSequenceRepository sequenceRepository,
+                                  InvoiceRepository invoiceRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.invoiceNumbers.blockSize:20}") int blockSize) {
+        this.sequenceRepository = sequenceRepository;
+        this.invoiceRepository = invoiceRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    public String nextInvoiceNumber() {
+        String month = YearMonth.now().toString();
+        while (true) {
+            lock.lock();
+            try {
+                // A caller that read the clock just before a month change keeps to the new month
+                if (period != null && month.compareTo(period) < 0) {
+                    month = period;
+                }
+                if (month.equals(period) && next < limit) {
+                    return String.format("%s-%06d", period, next++);
+                }
+            } finally {
+                lock.unlock();
+            }
+            refill(month);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        try {
+            releaseUnused();
+        } catch (DataAccessException e) {
+            // Database already closed; the unused numbers stay a gap
+        }
+    }
+
+    public void releaseUnused() {
+        String releasedPeriod;
+        long unusedFrom;
+        long reservedTo;
+        lock.lock();
+        try {
+            releasedPeriod = period;
+            unusedFrom = next;
+            reservedTo = limit;
+            next = limit;
+        } finally {
+            lock.unlock();
+        }
+        release(releasedPeriod, unusedFrom, reservedTo);
+    }
+
+    // The reservation commits on its own (see reserveBlock), so a refill briefly needs a
+    // second connection; with a block of blockSize numbers that is once per blockSize invoices
+    private void refill(String month) {
+        refillLock.lock();
+        try {
+            lock.lock();
+            try {
+                if (month.equals(period) && next < limit) {
+                    // Another caller refilled while this one waited
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            long start = reserveBlock(month);
+            String previousPeriod;
+            long unusedFrom;
+            long reservedTo;
+            lock.lock();
+            try {
+                previousPeriod = period;
+                unusedFrom = next;
+                reservedTo = limit;
+                period = month;
+                next = start;
+                limit = start + blockSize;
+            } finally {
+                lock.unlock();
+            }
+            if (!month.equals(previousPeriod)) {
+                release(previousPeriod, unusedFrom, reservedTo);
+            }
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private void release(String releasedPeriod, long unusedFrom, long reservedTo) {
+        if (releasedPeriod != null && unusedFrom < reservedTo) {
+            newTransaction.executeWithoutResult(status ->
+                    sequenceRepository.release(releasedPeriod, unusedFrom, reservedTo));
+        }
+    }
+
+    // Committed on its own so the row lock is held only for the reservation itself
+    private long reserveBlock(String period) {
+        try {
+            return newTransaction.execute(status -> reserveBlockLocked(period));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the month's row first; it exists now
+            return newTransaction.execute(status -> reserveBlockLocked(period));
+        }
+    }
+
+    private long reserveBlockLocked(String period) {
+        InvoiceNumberSequence sequence = sequenceRepository.findForUpdate(period).orElse(null);
+        if (sequence == null) {
+            long start = firstFreeNumber(period);
+            sequenceRepository.saveAndFlush(new InvoiceNumberSequence(period, start + blockSize));
+            return start;
+        }
+        long start = sequence.getNextValue();
+        sequence.setNextValue(start + blockSize);
+        return start;
+    }
+
+    // Only runs once per month, to continue after invoices numbered before the counter existed
+    private long firstFreeNumber(String period) {
+        String highest = invoiceRepository.findMaxInvoiceNumberLike(period + "-%");
+        if (highest == null) {
+            return 1;
+        }
+        try {
+            return Long.parseLong(highest.substring(period.length() + 1)) + 1;
+        } catch (NumberFormatException e) {
+            return 1;
+        }
+    }
+}
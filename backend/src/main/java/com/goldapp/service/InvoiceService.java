@@ -1,6 +1,7 @@
 package com.goldapp.service;
 
 import com.goldapp.entity.Invoice;
+import com.goldapp.entity.InvoiceDailyRollup;
 import com.goldapp.entity.InvoiceItem;
 import com.goldapp.entity.Transaction;
 import com.goldapp.entity.Client;
@@ -10,9 +11,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -23,12 +26,18 @@ public class InvoiceService {
     @Autowired
     private InvoiceRepository invoiceRepository;
     
+    @Autowired
+    private DailyRollupService dailyRollupService;
+    
+    @Autowired
+    private InvoiceNumberAllocator invoiceNumberAllocator;
+    
     public Invoice createInvoice(Invoice invoice) {
         validateInvoice(invoice);
         
         // Generate invoice number if not provided
         if (invoice.getInvoiceNumber() == null || invoice.getInvoiceNumber().isEmpty()) {
-            invoice.setInvoiceNumber(generateInvoiceNumber());
+            invoice.setInvoiceNumber(invoiceNumberAllocator.nextInvoiceNumber());
         }
         
         // Ensure invoice number is unique
@@ -36,18 +45,32 @@ public class InvoiceService {
             throw new RuntimeException("Invoice number " + invoice.getInvoiceNumber() + " already exists");
         }
         
+        // Items posted as JSON arrive without their back-reference
+        if (invoice.getItems() != null) {
+            invoice.getItems().forEach(item -> item.setInvoice(invoice));
+        }
+
         // Calculate totals
         invoice.calculateTotals();
-        
+
         // Set Costa Rica legal terms if not provided
         if (invoice.getLegalTerms() == null || invoice.getLegalTerms().isEmpty()) {
             invoice.setLegalTerms(getCostaRicaLegalTerms());
         }
         
-        return invoiceRepository.save(invoice);
+        Invoice savedInvoice = invoiceRepository.save(invoice);
+        dailyRollupService.invoiceAdded(savedInvoice);
+        return savedInvoice;
     }
     
     public Invoice createInvoiceFromTransaction(Transaction transaction) {
+        return createInvoice(buildInvoiceFromTransaction(transaction));
+    }
+    
+    // Unsaved invoice for a trade with its single line, totals and legal terms; also
+    // used by InvoiceGenerationService, which numbers and writes invoices in batches
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public Invoice buildInvoiceFromTransaction(Transaction transaction) {
         Invoice.InvoiceType invoiceType = transaction.getType() == Transaction.TransactionType.SELL ?
                 Invoice.InvoiceType.SALE : Invoice.InvoiceType.PURCHASE;
         
@@ -78,8 +101,9 @@ public class InvoiceService {
         
         invoice.setItems(List.of(item));
         invoice.calculateTotals();
+        invoice.setLegalTerms(getCostaRicaLegalTerms());
         
-        return createInvoice(invoice);
+        return invoice;
     }
     
     public Invoice updateInvoice(Long id, Invoice invoiceDetails) {
@@ -98,6 +122,8 @@ public class InvoiceService {
             throw new RuntimeException("Invoice number " + invoiceDetails.getInvoiceNumber() + " already exists");
         }
         
+        BigDecimal previousTotal = invoice.getTotal();
+        
         // Update fields
         invoice.setInvoiceNumber(invoiceDetails.getInvoiceNumber());
         invoice.setTaxRate(invoiceDetails.getTaxRate());
@@ -112,7 +138,9 @@ public class InvoiceService {
         // Recalculate totals
         invoice.calculateTotals();
         
-        return invoiceRepository.save(invoice);
+        Invoice savedInvoice = invoiceRepository.save(invoice);
+        dailyRollupService.invoiceTotalChanged(savedInvoice, previousTotal);
+        return savedInvoice;
     }
     
     public Invoice getInvoiceById(Long id) {
@@ -141,20 +169,63 @@ public class InvoiceService {
         return invoiceRepository.findByProviderOrderByIssueDateDesc(provider, pageable);
     }
     
-    public List<Invoice> getInvoicesByStatus(Invoice.InvoiceStatus status) {
-        return invoiceRepository.findByStatus(status);
+    // --- Read side: DTOs mapped in the query, never lazy-loading behind Jackson ---
+    
+    @Transactional(readOnly = true)
+    public InvoiceDetail getInvoiceDetail(Long id) {
+        return invoiceRepository.findDetailById(id)
+                .map(InvoiceDetail::of)
+                .orElseThrow(() -> new RuntimeException("Invoice not found: " + id));
+    }
+    
+    @Transactional(readOnly = true)
+    public InvoiceDetail getInvoiceDetailByNumber(String invoiceNumber) {
+        return invoiceRepository.findDetailByInvoiceNumber(invoiceNumber)
+                .map(InvoiceDetail::of)
+                .orElseThrow(() -> new RuntimeException("Invoice not found: " + invoiceNumber));
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<InvoiceSummary> getInvoiceSummariesByClient(Long clientId, Pageable pageable) {
+        return invoiceRepository.findSummariesByClientId(clientId, pageable);
+    }
+    
+    @Transactional(readOnly = true)
+    public Page<InvoiceSummary> getInvoiceSummariesByProvider(Long providerId, Pageable pageable) {
+        return invoiceRepository.findSummariesByProviderId(providerId, pageable);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<InvoiceSummary> getInvoicesByStatus(Invoice.InvoiceStatus status) {
+        return invoiceRepository.findSummariesByStatus(status);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<InvoiceSummary> getInvoicesByType(Invoice.InvoiceType type) {
+        return invoiceRepository.findSummariesByType(type);
     }
     
-    public List<Invoice> getInvoicesByType(Invoice.InvoiceType type) {
-        return invoiceRepository.findByInvoiceType(type);
+    @Transactional(readOnly = true)
+    public List<InvoiceSummary> getInvoicesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return invoiceRepository.findSummariesByDateRange(startDate, endDate);
     }
     
-    public List<Invoice> getInvoicesByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
-        return invoiceRepository.findByDateRange(startDate, endDate);
+    public long countOverdueInvoices() {
+        return invoiceRepository.countOverdueInvoices(Invoice.InvoiceStatus.ISSUED, LocalDateTime.now());
     }
     
-    public List<Invoice> getOverdueInvoices() {
-        return invoiceRepository.findOverdueInvoices(Invoice.InvoiceStatus.ISSUED, LocalDateTime.now());
+    // Served from the daily rollups rather than summing the invoices table
+    public BigDecimal getRolledUpTotal(Invoice.InvoiceType type, Invoice.InvoiceStatus status) {
+        return dailyRollupService.getInvoiceTotal(type, status);
+    }
+    
+    public List<InvoiceDailyRollup> getDailyRollups(LocalDate startDate, LocalDate endDate) {
+        return dailyRollupService.getInvoiceRollups(startDate, endDate);
+    }
+    
+    @Transactional(readOnly = true)
+    public List<InvoiceSummary> getOverdueInvoices() {
+        return invoiceRepository.findOverdueSummaries(Invoice.InvoiceStatus.ISSUED, LocalDateTime.now());
     }
     
     public BigDecimal getTotalAmountByTypeAndStatus(Invoice.InvoiceType type, Invoice.InvoiceStatus status) {
@@ -169,11 +240,13 @@ public class InvoiceService {
             throw new RuntimeException("Invoice is already paid");
         }
         
+        Invoice.InvoiceStatus previousStatus = invoice.getStatus();
         invoice.setStatus(Invoice.InvoiceStatus.PAID);
         invoice.setPaidDate(LocalDateTime.now());
         invoice.setPaymentMethod(paymentMethod);
         
         invoiceRepository.save(invoice);
+        dailyRollupService.invoiceStatusChanged(invoice, previousStatus);
     }
     
     public void markInvoiceAsIssued(Long id) {
@@ -185,6 +258,7 @@ public class InvoiceService {
         
         invoice.setStatus(Invoice.InvoiceStatus.ISSUED);
         invoiceRepository.save(invoice);
+        dailyRollupService.invoiceStatusChanged(invoice, Invoice.InvoiceStatus.DRAFT);
     }
     
     public void cancelInvoice(Long id, String reason) {
@@ -194,10 +268,12 @@ public class InvoiceService {
             throw new RuntimeException("Cannot cancel paid invoice");
         }
         
+        Invoice.InvoiceStatus previousStatus = invoice.getStatus();
         invoice.setStatus(Invoice.InvoiceStatus.CANCELLED);
         invoice.setNotes(invoice.getNotes() + "\nCANCELLED: " + reason);
         
         invoiceRepository.save(invoice);
+        dailyRollupService.invoiceStatusChanged(invoice, previousStatus);
     }
     
     public void deleteInvoice(Long id) {
@@ -208,6 +284,7 @@ public class InvoiceService {
         }
         
         invoiceRepository.deleteById(id);
+        dailyRollupService.invoiceRemoved(invoice);
     }
     
     private void validateInvoice(Invoice invoice) {
@@ -234,19 +311,6 @@ public class InvoiceService {
         }
     }
     
-    private String generateInvoiceNumber() {
-        LocalDateTime now = LocalDateTime.now();
-        String year = String.valueOf(now.getYear());
-        String month = String.format("%02d", now.getMonthValue());
-        long count = invoiceRepository.countInvoicesByDateRange(
-                now.withDayOfMonth(1).withHour(0).withMinute(0).withSecond(0),
-                now.withDayOfMonth(now.toLocalDate().lengthOfMonth()).withHour(23).withMinute(59).withSecond(59)
-        );
-        String sequence = String.format("%06d", count + 1);
-        
-        return year + "-" + month + "-" + sequence;
-    }
-    
     private String buildFullAddress(String address, String city, String province) {
         StringBuilder fullAddress = new StringBuilder();
         
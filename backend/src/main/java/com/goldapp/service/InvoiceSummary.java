@@ -0,0 +1,37 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.Invoice;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Flat invoice row for list endpoints, selected by a JPQL constructor expression:
+// client and provider names come from the same statement, items only as a count.
+public record InvoiceSummary(Long id,
+                             String invoiceNumber,
+                             Invoice.InvoiceType invoiceType,
+                             Invoice.InvoiceStatus status,
+                             Long transactionId,
+                             Long clientId,
+                             String clientName,
+                             Long providerId,
+                             String providerName,
+                             String customerTaxId,
+                             BigDecimal subtotal,
+                             BigDecimal taxAmount,
+                             BigDecimal total,
+                             String currency,
+                             String paymentMethod,
+                             LocalDateTime issueDate,
+                             LocalDateTime dueDate,
+                             LocalDateTime paidDate,
+                             int itemCount) {
+
+    // Select list shared by every InvoiceRepository summary query
+    public static final String SELECT =
+            "SELECT new com.goldapp.service.InvoiceSummary(i.id, i.invoiceNumber, i.invoiceType, i.status, " +
+            "i.transaction.id, c.id, CONCAT(c.firstName, ' ', c.lastName), p.id, CONCAT(p.firstName, ' ', p.lastName), " +
+            "i.customerTaxId, i.subtotal, i.taxAmount, i.total, i.currency, i.paymentMethod, " +
+            "i.issueDate, i.dueDate, i.paidDate, SIZE(i.items)) " +
+            "FROM Invoice i LEFT JOIN i.client c LEFT JOIN i.provider p ";
+}
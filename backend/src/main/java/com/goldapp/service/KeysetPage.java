@@ -0,0 +1,17 @@
+package com.goldapp.service;
+
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a cursor-paginated feed; nextCursor is null on the last page. No total count.
+public record KeysetPage<T>(List<T> items, String nextCursor) {
+
+    // Rows are fetched with one extra to learn whether another page follows
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new KeysetPage<>(items, cursorOf.apply(items.get(size - 1)).encode());
+    }
+}
@@ -0,0 +1,25 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.InventoryMovement;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// Inventory movement with its carat, but not the inventory row or transaction it points to
+public record MovementSummary(Long id,
+                              Long inventoryId,
+                              Integer carat,
+                              Long transactionId,
+                              InventoryMovement.MovementType movementType,
+                              BigDecimal quantity,
+                              BigDecimal pricePerGram,
+                              BigDecimal balanceAfter,
+                              String reason,
+                              LocalDateTime createdAt) {
+
+    // transaction.id reads the foreign key column; only the inventory is joined
+    public static final String SELECT =
+            "SELECT new com.goldapp.service.MovementSummary(im.id, gi.id, gi.carat, im.transaction.id, " +
+            "im.movementType, im.quantity, im.pricePerGram, im.balanceAfter, im.reason, im.createdAt) " +
+            "FROM InventoryMovement im JOIN im.inventory gi ";
+}
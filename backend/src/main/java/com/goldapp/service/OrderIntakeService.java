@@ -0,0 +1,193 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.Transaction;
+import com.goldapp.entity.User;
+import com.goldapp.repository.TradeBatchRepository;
+import com.goldapp.repository.TradeBatchRepository.BalanceDelta;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Groups concurrent buy/sell requests into micro-batches: one price snapshot,
+// one JDBC batch per table and one commit per batch
+@Service
+public class OrderIntakeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntakeService.class);
+    private static final int MONEY_SCALE = 2;
+
+    private final TradeBatchRepository tradeBatchRepository;
+    private final GoldPriceService goldPriceService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.orderIntake.maxBatchSize:256}")
+    private int maxBatchSize;
+
+    @Value("${app.orderIntake.maxWaitMs:2}")
+    private long maxWaitMs;
+
+    @Value("${app.orderIntake.queueCapacity:10000}")
+    private int queueCapacity;
+
+    private BlockingQueue<TradeOrder> queue;
+    private Thread worker;
+    private volatile boolean running;
+
+    public OrderIntakeService(TradeBatchRepository tradeBatchRepository,
+                              GoldPriceService goldPriceService,
+                              TransactionTemplate transactionTemplate) {
+        this.tradeBatchRepository = tradeBatchRepository;
+        this.goldPriceService = goldPriceService;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    private record TradeOrder(User user,
+                              Transaction.TransactionType type,
+                              BigDecimal goldAmount,
+                              CompletableFuture<Transaction> result) {}
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        worker = new Thread(this::drainLoop, "order-intake");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    public CompletableFuture<Transaction> submitBuy(User user, BigDecimal goldAmount) {
+        return submit(user, Transaction.TransactionType.BUY, goldAmount);
+    }
+
+    public CompletableFuture<Transaction> submitSell(User user, BigDecimal goldAmount) {
+        return submit(user, Transaction.TransactionType.SELL, goldAmount);
+    }
+
+    private CompletableFuture<Transaction> submit(User user, Transaction.TransactionType type, BigDecimal goldAmount) {
+        if (goldAmount == null || goldAmount.compareTo(BigDecimal.ZERO) <= 0) {
+            return CompletableFuture.failedFuture(new RuntimeException("Amount must be positive"));
+        }
+        TradeOrder order = new TradeOrder(user, type, goldAmount, new CompletableFuture<>());
+        if (!running || !queue.offer(order)) {
+            return CompletableFuture.failedFuture(new RuntimeException("Order intake is busy, please retry"));
+        }
+        return order.result();
+    }
+
+    private void drainLoop() {
+        List<TradeOrder> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                TradeOrder first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    TradeOrder next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    failAll(new ArrayList<>(queue), new RuntimeException("Order intake is shutting down"));
+                    queue.clear();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Order batch of {} failed", batch.size(), e);
+                failAll(batch, new RuntimeException("Order could not be processed"));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<TradeOrder> batch) {
+        Optional<GoldPriceSnapshot> price = goldPriceService.getCurrentPrice();
+        if (price.isEmpty()) {
+            failAll(batch, new RuntimeException("Gold price not available"));
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BalanceDelta> deltas = new ArrayList<>(batch.size());
+        List<Transaction> transactions = new ArrayList<>(batch.size());
+        for (TradeOrder order : batch) {
+            Transaction tx = price(order, price.get(), now);
+            transactions.add(tx);
+            deltas.add(order.type() == Transaction.TransactionType.BUY
+                    ? new BalanceDelta(order.user().getId(), tx.getTotalAmount().negate(), tx.getGoldAmount())
+                    : new BalanceDelta(order.user().getId(), tx.getTotalAmount(), tx.getGoldAmount().negate()));
+        }
+
+        boolean[] applied = transactionTemplate.execute(status -> {
+            boolean[] accepted = tradeBatchRepository.applyBalanceDeltas(deltas, now);
+            List<Transaction> toInsert = new ArrayList<>(batch.size());
+            for (int i = 0; i < accepted.length; i++) {
+                if (accepted[i]) {
+                    toInsert.add(transactions.get(i));
+                }
+            }
+            tradeBatchRepository.insertTransactions(toInsert);
+            return accepted;
+        });
+
+        // Futures complete only after the commit
+        for (int i = 0; i < batch.size(); i++) {
+            TradeOrder order = batch.get(i);
+            if (applied[i]) {
+                order.result().complete(transactions.get(i));
+            } else {
+                order.result().completeExceptionally(new RuntimeException(
+                        order.type() == Transaction.TransactionType.BUY ? "Insufficient funds" : "Insufficient gold holdings"));
+            }
+        }
+    }
+
+    private Transaction price(TradeOrder order, GoldPriceSnapshot price, LocalDateTime now) {
+        BigDecimal pricePerGram = order.type() == Transaction.TransactionType.BUY ? price.buyPrice() : price.sellPrice();
+        Transaction tx = new Transaction();
+        tx.setUser(order.user());
+        tx.setType(order.type());
+        tx.setGoldAmount(order.goldAmount());
+        tx.setPricePerGram(pricePerGram);
+        tx.setTotalAmount(order.goldAmount().multiply(pricePerGram).setScale(MONEY_SCALE, RoundingMode.HALF_UP));
+        tx.setCreatedAt(now);
+        tx.setStatus(Transaction.TransactionStatus.COMPLETED);
+        tx.setCompletedAt(now);
+        return tx;
+    }
+
+    private void failAll(List<TradeOrder> orders, RuntimeException cause) {
+        for (TradeOrder order : orders) {
+            order.result().completeExceptionally(cause);
+        }
+    }
+}
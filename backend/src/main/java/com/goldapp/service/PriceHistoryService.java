@@ -0,0 +1,219 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.GoldPrice;
+import com.goldapp.entity.PriceCandle;
+import com.goldapp.repository.PriceCandleRepository;
+import com.goldapp.repository.PriceHistoryRepository;
+import com.goldapp.repository.PriceHistoryRepository.CandleRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Price history: every price change is appended to price_ticks, and a background
+// job folds ticks into 1m candles, 1m into 1h and 1h into 1d. Charts read candles
+// only, choosing a resolution that keeps the answer under app.priceHistory.maxPoints.
+@Service
+public class PriceHistoryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceHistoryService.class);
+
+    private final PriceHistoryRepository historyRepository;
+    private final PriceCandleRepository candleRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.priceHistory.maxPoints:1500}")
+    private int maxPoints;
+
+    @Value("${app.priceHistory.tickRetentionDays:90}")
+    private int tickRetentionDays;
+
+    @Value("${app.priceHistory.partitionsAhead:7}")
+    private int partitionsAhead;
+
+    public PriceHistoryService(PriceHistoryRepository historyRepository,
+                               PriceCandleRepository candleRepository,
+                               TransactionTemplate transactionTemplate) {
+        this.historyRepository = historyRepository;
+        this.candleRepository = candleRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    // Runs in the caller's transaction, so a tick exists exactly when its price does
+    public void recordTick(GoldPrice price) {
+        historyRepository.insertTick(price.getTimestamp() != null ? price.getTimestamp() : LocalDateTime.now(),
+                price.getBuyPrice(), price.getSellPrice(), price.getId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (historyRepository.isPostgres()) {
+            historyRepository.createPartitionedTickTable();
+        }
+        maintainTickStorage();
+        if (historyRepository.findEarliestTickTime() == null) {
+            int copied = historyRepository.copyTicksFromGoldPrices();
+            logger.info("Seeded price history with {} ticks from gold_prices", copied);
+        }
+        downsample();
+    }
+
+    @Scheduled(fixedDelayString = "${app.priceHistory.downsampleMs:60000}", initialDelayString = "${app.priceHistory.downsampleMs:60000}")
+    public void downsample() {
+        for (PriceCandle.Resolution resolution : PriceCandle.Resolution.values()) {
+            try {
+                downsample(resolution, LocalDateTime.now());
+            } catch (DataIntegrityViolationException e) {
+                // Another node rewrote the same buckets; its result is as good as ours
+                logger.debug("Concurrent {} candle rewrite skipped", resolution.getCode());
+            }
+        }
+    }
+
+    // Creates upcoming daily partitions and drops ticks past retention; candles are kept
+    @Scheduled(cron = "${app.priceHistory.maintenanceCron:0 5 0 * * *}")
+    public void maintainTickStorage() {
+        LocalDate today = LocalDate.now();
+        LocalDate cutoff = today.minusDays(tickRetentionDays);
+        if (historyRepository.isPostgres()) {
+            for (int i = 0; i <= partitionsAhead; i++) {
+                try {
+                    historyRepository.createDailyPartition(today.plusDays(i));
+                } catch (RuntimeException e) {
+                    // Fails when the default partition already holds rows for that day
+                    logger.warn("Could not create price tick partition for {}: {}", today.plusDays(i), e.getMessage());
+                }
+            }
+            historyRepository.findDailyPartitions().stream()
+                    .filter(day -> day.isBefore(cutoff))
+                    .forEach(historyRepository::dropDailyPartition);
+        }
+        historyRepository.deleteTicksBefore(cutoff.atStartOfDay());
+    }
+
+    public List<PriceCandle> getChart(LocalDateTime from, LocalDateTime to, String resolutionParam) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new RuntimeException("Start date must be before end date");
+        }
+        PriceCandle.Resolution resolution = resolutionParam != null
+                ? PriceCandle.Resolution.fromString(resolutionParam)
+                : finestWithinLimit(from, to);
+        if (bucketCount(from, to, resolution) > maxPoints) {
+            throw new RuntimeException("Range too large for " + resolution.getCode() + " candles (max " + maxPoints
+                    + " points); use a coarser resolution");
+        }
+        return candleRepository.findByResolutionAndBucketStartBetweenOrderByBucketStartAsc(
+                resolution, resolution.truncate(from), to);
+    }
+
+    // Finest resolution that stays within maxPoints
+    private PriceCandle.Resolution finestWithinLimit(LocalDateTime from, LocalDateTime to) {
+        for (PriceCandle.Resolution resolution : PriceCandle.Resolution.values()) {
+            if (bucketCount(from, to, resolution) <= maxPoints) {
+                return resolution;
+            }
+        }
+        return PriceCandle.Resolution.DAY;
+    }
+
+    private static long bucketCount(LocalDateTime from, LocalDateTime to, PriceCandle.Resolution resolution) {
+        return Duration.between(resolution.truncate(from), to).dividedBy(resolution.getDuration()) + 1;
+    }
+
+    // Rebuilds from the newest bucket on (it may have been partial) through the current one
+    private void downsample(PriceCandle.Resolution resolution, LocalDateTime now) {
+        LocalDateTime latest = historyRepository.findLatestBucket(resolution);
+        LocalDateTime from;
+        if (latest != null) {
+            from = latest;
+        } else {
+            LocalDateTime earliest = resolution == PriceCandle.Resolution.MINUTE
+                    ? historyRepository.findEarliestTickTime()
+                    : historyRepository.findEarliestBucket(source(resolution));
+            if (earliest == null) {
+                return;
+            }
+            from = resolution.truncate(earliest);
+        }
+        LocalDateTime to = resolution.truncate(now).plus(resolution.getDuration());
+
+        List<CandleBuilder> buckets = new ArrayList<>();
+        if (resolution == PriceCandle.Resolution.MINUTE) {
+            historyRepository.forEachTick(from, to, tick -> bucketFor(buckets, resolution, tick.tickTime())
+                    .add(tick.buyPrice(), tick.buyPrice(), tick.buyPrice(), tick.buyPrice(), tick.sellPrice(), 1));
+        } else {
+            for (CandleRow candle : historyRepository.findCandles(source(resolution), from, to)) {
+                bucketFor(buckets, resolution, candle.bucketStart()).add(candle.open(), candle.high(), candle.low(),
+                        candle.close(), candle.closeSell(), candle.tickCount());
+            }
+        }
+
+        List<CandleRow> candles = buckets.stream().map(CandleBuilder::build).toList();
+        transactionTemplate.executeWithoutResult(status -> historyRepository.replaceCandles(resolution, from, candles));
+    }
+
+    private static PriceCandle.Resolution source(PriceCandle.Resolution resolution) {
+        return switch (resolution) {
+            case HOUR -> PriceCandle.Resolution.MINUTE;
+            case DAY -> PriceCandle.Resolution.HOUR;
+            default -> throw new IllegalArgumentException("Minute candles are built from ticks");
+        };
+    }
+
+    // Input arrives ordered by time, so a bucket is only ever extended at the end
+    private static CandleBuilder bucketFor(List<CandleBuilder> buckets, PriceCandle.Resolution resolution,
+                                           LocalDateTime time) {
+        LocalDateTime bucketStart = resolution.truncate(time);
+        CandleBuilder last = buckets.isEmpty() ? null : buckets.get(buckets.size() - 1);
+        if (last == null || !last.bucketStart.equals(bucketStart)) {
+            last = new CandleBuilder(bucketStart);
+            buckets.add(last);
+        }
+        return last;
+    }
+
+    private static final class CandleBuilder {
+        private final LocalDateTime bucketStart;
+        private BigDecimal open;
+        private BigDecimal high;
+        private BigDecimal low;
+        private BigDecimal close;
+        private BigDecimal closeSell;
+        private long count;
+
+        private CandleBuilder(LocalDateTime bucketStart) {
+            this.bucketStart = bucketStart;
+        }
+
+        private void add(BigDecimal open, BigDecimal high, BigDecimal low, BigDecimal close, BigDecimal closeSell,
+                         long count) {
+            if (this.open == null) {
+                this.open = open;
+                this.high = high;
+                this.low = low;
+            } else {
+                this.high = this.high.max(high);
+                this.low = this.low.min(low);
+            }
+            this.close = close;
+            this.closeSell = closeSell;
+            this.count += count;
+        }
+
+        private CandleRow build() {
+            return new CandleRow(bucketStart, open, high, low, close, closeSell, count);
+        }
+    }
+}
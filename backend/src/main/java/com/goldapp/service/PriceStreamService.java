@@ -0,0 +1,359 @@
+package com.goldapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+// Fans price ticks out to SSE subscribers. Each tick is serialized once into a
+// fixed-size ring; one dispatcher thread walks the subscribers and hands each one
+// with unsent ticks to a small sender pool, at most one task per subscriber, so a
+// slow client only holds up itself. A subscriber that falls a full ring behind
+// skips ahead: every tick carries a complete price, so only the latest ones matter.
+// One whose send stays blocked longer than stallMs is dropped, and its sender is
+// written off until the write times out: the pool gets a thread in its place, up to
+// spareSenders of them; past that the subscriber is dropped without one. Each client
+// address may hold maxPerClient streams, so no one client can hold many senders.
+@Service
+public class PriceStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceStreamService.class);
+
+    public static final String GOLD_EVENT = "gold-price";
+    public static final String CARAT_EVENT = "carat-prices";
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${app.priceStream.bufferSize:1024}")
+    private int bufferSize;
+
+    @Value("${app.priceStream.maxSubscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${app.priceStream.timeoutMs:1800000}")
+    private long timeoutMs;
+
+    @Value("${app.priceStream.heartbeatMs:15000}")
+    private long heartbeatMs;
+
+    @Value("${app.priceStream.senderThreads:8}")
+    private int senderThreads;
+
+    @Value("${app.priceStream.stallMs:5000}")
+    private long stallMs;
+
+    @Value("${app.priceStream.spareSenders:16}")
+    private int spareSenders;
+
+    @Value("${app.priceStream.maxPerClient:16}")
+    private int maxPerClient;
+
+    private AtomicReferenceArray<Tick> ring;
+    private int mask;
+    private volatile long head = 0; // sequence of the newest tick, 0 before the first
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<String, Integer> perClient = new ConcurrentHashMap<>();
+    private int sparesInUse; // senders added for stalled subscribers; guarded by this
+    private final Object signal = new Object();
+    private Thread dispatcher;
+    private ThreadPoolExecutor senders;
+    private volatile boolean running;
+    private volatile boolean subscribersAdded;
+
+    public PriceStreamService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public record StreamEvent(String name, Object payload) {}
+
+    private record Tick(long sequence, String event, String json) {}
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final String client;
+        private final AtomicBoolean scheduled = new AtomicBoolean(); // a sender task is queued or running
+        private long cursor; // next sequence to send; only the task holding scheduled touches it
+        private volatile long sendStartedAt; // nanoTime of the send in progress, 0 when idle
+        private volatile boolean heartbeatDue;
+        private final AtomicBoolean closed = new AtomicBoolean(); // dropped as stalled, or failed
+        private volatile boolean replaced; // dropped as stalled with a spare sender added for it
+
+        private Subscriber(SseEmitter emitter, String client, long cursor) {
+            this.emitter = emitter;
+            this.client = client;
+            this.cursor = cursor;
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        int capacity = Integer.highestOneBit(Math.max(bufferSize, 2) - 1) << 1;
+        ring = new AtomicReferenceArray<>(capacity);
+        mask = capacity - 1;
+        AtomicInteger senderCount = new AtomicInteger();
+        senders = new ThreadPoolExecutor(senderThreads, senderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "price-stream-send-" + senderCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        running = true;
+        dispatcher = new Thread(this::dispatchLoop, "price-stream");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        dispatcher.interrupt();
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    public void publishGoldPrice(GoldPriceSnapshot snapshot) {
+        publish(GOLD_EVENT, snapshot);
+    }
+
+    public void publishCaratPrices(CaratPriceSnapshot snapshot) {
+        publish(CARAT_EVENT, snapshot);
+    }
+
+    // lastEventId lets a reconnecting client resume; otherwise it starts from the
+    // current prices supplied by initialState. client is the caller's address.
+    public SseEmitter subscribe(String client, Long lastEventId, Supplier<List<StreamEvent>> initialState) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new RuntimeException("Too many price stream subscribers");
+        }
+        if (!claimClientSlot(client)) {
+            throw new RuntimeException("Too many price streams from " + client);
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        long current = head;
+        boolean resumable = lastEventId != null && lastEventId <= current && current - lastEventId < ring.length();
+        Subscriber subscriber = new Subscriber(emitter, client, resumable ? lastEventId + 1 : current + 1);
+
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+
+        if (!resumable) {
+            try {
+                for (StreamEvent event : initialState.get()) {
+                    emitter.send(SseEmitter.event().id(Long.toString(current)).name(event.name())
+                            .data(objectMapper.writeValueAsString(event.payload())));
+                }
+            } catch (IOException e) {
+                releaseClientSlot(client);
+                emitter.completeWithError(e);
+                return emitter;
+            } catch (RuntimeException e) {
+                releaseClientSlot(client);
+                throw e;
+            }
+        }
+        subscribers.add(subscriber);
+        subscribersAdded = true;
+        wakeDispatcher();
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private boolean claimClientSlot(String client) {
+        boolean[] claimed = new boolean[1];
+        perClient.compute(client, (key, count) -> {
+            int held = count != null ? count : 0;
+            claimed[0] = held < maxPerClient;
+            return claimed[0] ? held + 1 : count;
+        });
+        return claimed[0];
+    }
+
+    private void releaseClientSlot(String client) {
+        perClient.computeIfPresent(client, (key, count) -> count > 1 ? count - 1 : null);
+    }
+
+    // Only the call that actually removes the subscriber hands back its client's slot
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            releaseClientSlot(subscriber.client);
+        }
+    }
+
+    private synchronized void publish(String event, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            logger.error("Could not serialize {} tick", event, e);
+            return;
+        }
+        long sequence = head + 1;
+        ring.set((int) (sequence & mask), new Tick(sequence, event, json));
+        head = sequence;
+        wakeDispatcher();
+    }
+
+    private void wakeDispatcher() {
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+    }
+
+    private void dispatchLoop() {
+        long nextHeartbeat = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(heartbeatMs);
+        long delivered = 0;
+        while (running) {
+            try {
+                synchronized (signal) {
+                    if (head == delivered && !subscribersAdded) {
+                        long waitMs = TimeUnit.NANOSECONDS.toMillis(nextHeartbeat - System.nanoTime());
+                        if (waitMs > 0) {
+                            signal.wait(waitMs);
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            subscribersAdded = false;
+            long upTo = head;
+            long now = System.nanoTime();
+            boolean heartbeat = now >= nextHeartbeat;
+            long stallNanos = TimeUnit.MILLISECONDS.toNanos(stallMs);
+            for (Subscriber subscriber : subscribers) {
+                long started = subscriber.sendStartedAt;
+                if (started != 0 && now - started > stallNanos) {
+                    if (!subscriber.closed.get()) {
+                        // Set before closing, so the task that sees it closed knows whether to give a thread back
+                        subscriber.replaced = addSpareSender();
+                        if (subscriber.closed.compareAndSet(false, true)) {
+                            remove(subscriber);
+                            logger.debug("Dropped a price stream subscriber whose send blocked for over {} ms{}",
+                                    stallMs, subscriber.replaced ? "" : "; no spare sender left");
+                        } else if (subscriber.replaced) {
+                            subscriber.replaced = false;
+                            removeSpareSender();
+                        }
+                    }
+                    // Whichever task holds the subscriber completes it and gives the thread back
+                    if (subscriber.scheduled.compareAndSet(false, true)) {
+                        senders.execute(() -> send(subscriber));
+                    }
+                    continue;
+                }
+                if (heartbeat) {
+                    subscriber.heartbeatDue = true;
+                }
+                if (subscriber.scheduled.compareAndSet(false, true)) {
+                    senders.execute(() -> send(subscriber));
+                }
+            }
+            delivered = upTo;
+            if (heartbeat) {
+                nextHeartbeat = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(heartbeatMs);
+            }
+        }
+    }
+
+    // Runs on a sender thread while the subscriber's scheduled flag is held. After
+    // clearing the flag it looks again for work the dispatcher left to it, having seen
+    // the flag still set. A closed subscriber keeps the flag, so it is handled once.
+    private void send(Subscriber subscriber) {
+        try {
+            while (!subscriber.closed.get()) {
+                deliver(subscriber, head);
+                if (subscriber.heartbeatDue) {
+                    subscriber.heartbeatDue = false;
+                    timedSend(subscriber, SseEmitter.event().comment("keep-alive"));
+                }
+                long next = subscriber.cursor;
+                subscriber.scheduled.set(false);
+                boolean pending = next <= head || subscriber.heartbeatDue || subscriber.closed.get();
+                if (!pending || !subscriber.scheduled.compareAndSet(false, true)) {
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            if (subscriber.closed.compareAndSet(false, true)) {
+                // Client went away; the emitter callbacks may not fire for a dead socket
+                remove(subscriber);
+            } else if (subscriber.replaced) {
+                removeSpareSender();
+            }
+            subscriber.emitter.completeWithError(e);
+            return;
+        }
+        if (subscriber.replaced) {
+            removeSpareSender();
+        }
+        subscriber.emitter.complete();
+    }
+
+    private synchronized boolean addSpareSender() {
+        if (sparesInUse >= spareSenders) {
+            return false;
+        }
+        sparesInUse++;
+        int size = senders.getCorePoolSize() + 1;
+        senders.setMaximumPoolSize(size);
+        senders.setCorePoolSize(size);
+        return true;
+    }
+
+    private synchronized void removeSpareSender() {
+        sparesInUse--;
+        int size = senders.getCorePoolSize() - 1;
+        senders.setCorePoolSize(size);
+        senders.setMaximumPoolSize(size);
+    }
+
+    private void timedSend(Subscriber subscriber, SseEmitter.SseEventBuilder event) throws IOException {
+        subscriber.sendStartedAt = System.nanoTime();
+        try {
+            subscriber.emitter.send(event);
+        } finally {
+            subscriber.sendStartedAt = 0;
+        }
+    }
+
+    private void deliver(Subscriber subscriber, long upTo) throws IOException {
+        if (upTo - subscriber.cursor >= ring.length()) {
+            subscriber.cursor = upTo - ring.length() + 1;
+        }
+        while (subscriber.cursor <= upTo && !subscriber.closed.get()) {
+            Tick tick = ring.get((int) (subscriber.cursor & mask));
+            if (tick == null || tick.sequence() != subscriber.cursor) {
+                // Overwritten while we were sending; move to the oldest tick still held
+                subscriber.cursor = Math.max(subscriber.cursor + 1, head - ring.length() + 1);
+                continue;
+            }
+            timedSend(subscriber, SseEmitter.event().id(Long.toString(tick.sequence()))
+                    .name(tick.event()).data(tick.json()));
+            subscriber.cursor++;
+        }
+    }
+}
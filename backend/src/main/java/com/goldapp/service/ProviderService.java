@@ -3,6 +3,7 @@ package com.goldapp.service;
 import com.goldapp.entity.Provider;
 import com.goldapp.repository.ProviderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -10,27 +11,47 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.regex.Pattern;
 
 @Service
 @Transactional
 public class ProviderService {
     
+    private static final Pattern CEDULA_DASHED = Pattern.compile("\\d{1}-\\d{4}-\\d{4}");
+    private static final Pattern CEDULA_PLAIN = Pattern.compile("\\d{9}");
+    
     @Autowired
     private ProviderRepository providerRepository;
     
+    @Autowired
+    private DirectorySearchService directorySearchService;
+    
+    @Autowired
+    private UniquenessGuard uniquenessGuard;
+    
     public Provider createProvider(Provider provider) {
         validateProvider(provider);
         
-        if (providerRepository.existsByCedula(provider.getCedula())) {
+        if (uniquenessGuard.isTaken(UniquenessGuard.Key.PROVIDER_CEDULA, provider.getCedula(), providerRepository::existsByCedula)) {
             throw new RuntimeException("Provider with cedula " + provider.getCedula() + " already exists");
         }
         
+        // Emails have no unique constraint behind them, so they are always checked here
         if (provider.getEmail() != null && !provider.getEmail().isEmpty() && 
             providerRepository.existsByEmail(provider.getEmail())) {
             throw new RuntimeException("Provider with email " + provider.getEmail() + " already exists");
         }
         
-        return providerRepository.save(provider);
+        Provider saved;
+        try {
+            saved = providerRepository.save(provider);
+        } catch (DataIntegrityViolationException e) {
+            // Another node saved this cedula since our filter was last rebuilt
+            throw new RuntimeException("Provider with cedula " + provider.getCedula() + " already exists");
+        }
+        directorySearchService.providerSaved(saved);
+        uniquenessGuard.record(UniquenessGuard.Key.PROVIDER_CEDULA, saved.getCedula());
+        return saved;
     }
     
     public Provider updateProvider(Long id, Provider providerDetails) {
@@ -41,7 +62,7 @@ public class ProviderService {
         
         // Check if cedula is being changed and if new cedula already exists
         if (!provider.getCedula().equals(providerDetails.getCedula()) && 
-            providerRepository.existsByCedula(providerDetails.getCedula())) {
+            uniquenessGuard.isTaken(UniquenessGuard.Key.PROVIDER_CEDULA, providerDetails.getCedula(), providerRepository::existsByCedula)) {
             throw new RuntimeException("Provider with cedula " + providerDetails.getCedula() + " already exists");
         }
         
@@ -69,7 +90,10 @@ public class ProviderService {
         provider.setBankName(providerDetails.getBankName());
         provider.setNotes(providerDetails.getNotes());
         
-        return providerRepository.save(provider);
+        Provider saved = providerRepository.save(provider);
+        directorySearchService.providerSaved(saved);
+        uniquenessGuard.record(UniquenessGuard.Key.PROVIDER_CEDULA, saved.getCedula());
+        return saved;
     }
     
     public Provider getProviderById(Long id) {
@@ -90,7 +114,7 @@ public class ProviderService {
     }
     
     public Page<Provider> searchProviders(String searchTerm, Pageable pageable) {
-        return providerRepository.findBySearchTerm(searchTerm, pageable);
+        return directorySearchService.searchProviders(searchTerm, pageable);
     }
     
     public List<Provider> getProvidersByType(Provider.ProviderType providerType) {
@@ -109,12 +133,14 @@ public class ProviderService {
         Provider provider = getProviderById(id);
         provider.setActive(false);
         providerRepository.save(provider);
+        directorySearchService.providerSaved(provider);
     }
     
     public void activateProvider(Long id) {
         Provider provider = getProviderById(id);
         provider.setActive(true);
         providerRepository.save(provider);
+        directorySearchService.providerSaved(provider);
     }
     
     public void deleteProvider(Long id) {
@@ -122,9 +148,11 @@ public class ProviderService {
             throw new RuntimeException("Provider not found: " + id);
         }
         providerRepository.deleteById(id);
+        directorySearchService.providerDeleted(id);
     }
     
-    private void validateProvider(Provider provider) {
+    // Also used by the bulk import, row by row
+    public void validateProvider(Provider provider) {
         if (provider.getFirstName() == null || provider.getFirstName().trim().isEmpty()) {
             throw new RuntimeException("First name is required");
         }
@@ -157,6 +185,6 @@ public class ProviderService {
         // Basic Costa Rica cedula validation
         // Format: X-XXXX-XXXX where X are digits
         // More sophisticated validation can be added later
-        return cedula.matches("\\d{1}-\\d{4}-\\d{4}") || cedula.matches("\\d{9}");
+        return CEDULA_DASHED.matcher(cedula).matches() || CEDULA_PLAIN.matcher(cedula).matches();
     }
 }
\ No newline at end of file
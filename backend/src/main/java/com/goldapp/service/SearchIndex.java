@@ -0,0 +1,218 @@
+package com.goldapp.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+// In-memory lookup over name, cedula and email. Queries of three or more characters
+// intersect trigram postings; shorter ones walk a sorted map of word prefixes. Postings
+// only narrow the candidates: every hit is checked against its entry before it is
+// ranked, so a reader racing an update never returns a false match.
+final class SearchIndex {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern IGNORED = Pattern.compile("[^\\p{L}\\p{N}@._ ]+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+    // Cannot collide with a trigram: normalize() strips ':'
+    private static final String WORD_KEY = "w:";
+
+    // Best match first: whole field, field prefix, word prefix, anywhere
+    private static final int EXACT = 4;
+    private static final int PREFIX = 3;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 1;
+
+    record Entry(Long id, String name, String cedula, String email, boolean active) {
+
+        Entry {
+            name = normalize(name);
+            cedula = normalize(cedula);
+            email = normalize(email);
+        }
+
+        private List<String> fields() {
+            return List.of(name, cedula, email);
+        }
+    }
+
+    record Hit(Long id, int score, String name) {}
+
+    record Result(List<Long> ids, int total) {}
+
+    private static final Comparator<Hit> RANK = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparing(Hit::name)
+            .thenComparing(Hit::id);
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Set<Long>> trigrams = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> words = new ConcurrentSkipListMap<>();
+
+    int size() {
+        return entries.size();
+    }
+
+    void put(Entry entry) {
+        Entry previous = entries.put(entry.id(), entry);
+        if (previous != null) {
+            unlink(previous, keysOf(entry));
+        }
+        link(entry);
+    }
+
+    void remove(Long id) {
+        Entry previous = entries.remove(id);
+        if (previous != null) {
+            unlink(previous, Collections.emptySet());
+        }
+    }
+
+    // Active entries containing the query, best first; total counts every match
+    Result search(String query, int limit) {
+        String q = normalize(query);
+        if (q.isEmpty() || limit <= 0) {
+            return new Result(List.of(), 0);
+        }
+        PriorityQueue<Hit> top = new PriorityQueue<>(RANK.reversed());
+        int total = 0;
+        for (Long id : candidates(q)) {
+            Entry entry = entries.get(id);
+            int score = entry != null && entry.active() ? score(entry, q) : 0;
+            if (score == 0) {
+                continue;
+            }
+            total++;
+            top.add(new Hit(id, score, entry.name()));
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(RANK);
+        return new Result(hits.stream().map(Hit::id).toList(), total);
+    }
+
+    private Set<Long> candidates(String q) {
+        if (q.length() < 3) {
+            Set<Long> ids = new HashSet<>();
+            words.subMap(q, true, q + Character.MAX_VALUE, false).values().forEach(ids::addAll);
+            return ids;
+        }
+        // Intersect from the rarest trigram so the working set starts small
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : trigramsOf(q)) {
+            Set<Long> posting = trigrams.get(gram);
+            if (posting == null) {
+                return Set.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> ids = new HashSet<>(postings.get(0));
+        for (int i = 1; i < postings.size() && !ids.isEmpty(); i++) {
+            ids.retainAll(postings.get(i));
+        }
+        return ids;
+    }
+
+    private static int score(Entry entry, String q) {
+        int best = 0;
+        for (String field : entry.fields()) {
+            if (field.isEmpty()) {
+                continue;
+            }
+            if (field.equals(q)) {
+                return EXACT;
+            } else if (field.startsWith(q)) {
+                best = Math.max(best, PREFIX);
+            } else if (field.contains(" " + q)) {
+                best = Math.max(best, WORD_PREFIX);
+            } else if (field.contains(q)) {
+                best = Math.max(best, SUBSTRING);
+            }
+        }
+        return best;
+    }
+
+    private void link(Entry entry) {
+        for (String field : entry.fields()) {
+            for (String gram : trigramsOf(field)) {
+                trigrams.computeIfAbsent(gram, k -> ConcurrentHashMap.newKeySet()).add(entry.id());
+            }
+        }
+        for (String word : wordsOf(entry)) {
+            words.computeIfAbsent(word, k -> ConcurrentHashMap.newKeySet()).add(entry.id());
+        }
+    }
+
+    // Drops the postings of the old entry that the replacement no longer has
+    private void unlink(Entry previous, Set<String> keep) {
+        for (String key : keysOf(previous)) {
+            if (keep.contains(key)) {
+                continue;
+            }
+            if (key.startsWith(WORD_KEY)) {
+                detach(words, key.substring(WORD_KEY.length()), previous.id());
+            } else {
+                detach(trigrams, key, previous.id());
+            }
+        }
+    }
+
+    private static void detach(Map<String, Set<Long>> postings, String key, Long id) {
+        postings.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    // Trigrams as-is and words behind WORD_KEY, so one set describes both maps
+    private static Set<String> keysOf(Entry entry) {
+        Set<String> keys = new HashSet<>();
+        for (String field : entry.fields()) {
+            keys.addAll(trigramsOf(field));
+        }
+        for (String word : wordsOf(entry)) {
+            keys.add(WORD_KEY + word);
+        }
+        return keys;
+    }
+
+    private static Set<String> wordsOf(Entry entry) {
+        Set<String> result = new HashSet<>();
+        for (String field : entry.fields()) {
+            for (String word : SPACES.split(field)) {
+                if (!word.isEmpty()) {
+                    result.add(word);
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> trigramsOf(String value) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + 3 <= value.length(); i++) {
+            result.add(value.substring(i, i + 3));
+        }
+        return result;
+    }
+
+    // Lower case without accents; dashes go too, so 1-0111-0111 and 101110111 match
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        folded = IGNORED.matcher(folded.toLowerCase()).replaceAll("");
+        return SPACES.matcher(folded).replaceAll(" ").trim();
+    }
+}
@@ -0,0 +1,6 @@
+package com.goldapp.service;
+
+import java.math.BigDecimal;
+
+// One lot of a provider shipment, received as a purchase at its own price
+public record ShipmentLot(Integer carat, BigDecimal grams, BigDecimal pricePerGram) {}
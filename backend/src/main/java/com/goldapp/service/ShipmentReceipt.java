@@ -0,0 +1,17 @@
+package com.goldapp.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// What a received shipment added, per carat; averagePricePerGram is the shipment's own
+// weighted average for that carat, before it is folded into the stock average
+public record ShipmentReceipt(Long providerId,
+                              List<Long> transactionIds,
+                              List<CaratTotal> carats) {
+
+    public record CaratTotal(Integer carat,
+                             int lots,
+                             BigDecimal grams,
+                             BigDecimal totalAmount,
+                             BigDecimal averagePricePerGram) {}
+}
@@ -0,0 +1,149 @@
+package com.goldapp.service;
+
+import com.goldapp.entity.Client;
+import com.goldapp.entity.Transaction;
+import com.goldapp.entity.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Quote-then-confirm sales: grams held in the inventory book for a limited time,
+// then sold at the quoted price or released. Holds live in memory like the book
+// itself; available stock already excludes them.
+@Service
+public class StockReservationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StockReservationService.class);
+
+    private final InventoryBook inventoryBook;
+    private final TransactionService transactionService;
+    private final ClientService clientService;
+
+    @Value("${app.reservations.ttlSeconds:300}")
+    private long defaultTtlSeconds;
+
+    @Value("${app.reservations.maxTtlSeconds:1800}")
+    private long maxTtlSeconds;
+
+    private final Map<String, Held> active = new ConcurrentHashMap<>();
+
+    public StockReservationService(InventoryBook inventoryBook,
+                                   TransactionService transactionService,
+                                   ClientService clientService) {
+        this.inventoryBook = inventoryBook;
+        this.transactionService = transactionService;
+        this.clientService = clientService;
+    }
+
+    public record StockReservation(String id, Integer carat, BigDecimal grams, BigDecimal pricePerGram,
+                                   String heldBy, LocalDateTime createdAt, LocalDateTime expiresAt) {}
+
+    private record Held(StockReservation reservation, Long holderId, InventoryBook.Hold hold) {}
+
+    public StockReservation hold(User user, Integer carat, BigDecimal grams, BigDecimal pricePerGram, Long ttlSeconds) {
+        if (carat == null) {
+            throw new RuntimeException("Carat is required");
+        }
+        if (grams == null || grams.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+        if (pricePerGram == null || pricePerGram.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("Price per gram must be positive");
+        }
+        long ttl = ttlSeconds != null ? ttlSeconds : defaultTtlSeconds;
+        if (ttl <= 0 || ttl > maxTtlSeconds) {
+            throw new RuntimeException("TTL must be between 1 and " + maxTtlSeconds + " seconds");
+        }
+
+        InventoryBook.Hold hold = inventoryBook.hold(carat, grams);
+        LocalDateTime now = LocalDateTime.now();
+        StockReservation reservation = new StockReservation(UUID.randomUUID().toString(), carat, hold.grams(),
+                pricePerGram, user.getUsername(), now, now.plusSeconds(ttl));
+        active.put(reservation.id(), new Held(reservation, user.getId(), hold));
+        return reservation;
+    }
+
+    public List<StockReservation> getActiveReservations() {
+        return active.values().stream()
+                .map(Held::reservation)
+                .sorted(Comparator.comparing(StockReservation::expiresAt))
+                .toList();
+    }
+
+    public StockReservation getReservation(String id) {
+        Held held = active.get(id);
+        if (held == null) {
+            throw new RuntimeException("Reservation not found or expired: " + id);
+        }
+        return held.reservation();
+    }
+
+    public void release(String id, User user) {
+        Held held = takeOwned(id, user);
+        inventoryBook.release(held.hold());
+    }
+
+    // Taking the entry out of the map first keeps the sweeper and a concurrent
+    // release away from it; a rolled-back sale puts it back
+    @Transactional
+    public Transaction confirm(String id, User user, Long clientId) {
+        Held held = takeOwned(id, user);
+        if (held.reservation().expiresAt().isBefore(LocalDateTime.now())) {
+            inventoryBook.release(held.hold());
+            throw new RuntimeException("Reservation not found or expired: " + id);
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    active.put(id, held);
+                }
+            }
+        });
+
+        Client client = clientService.getClientById(clientId);
+        return transactionService.sellHeldToClient(user, client, held.hold(), held.reservation().pricePerGram());
+    }
+
+    // Only the user who placed a hold, or an admin, may confirm or release it
+    private Held takeOwned(String id, User user) {
+        Held held = active.get(id);
+        if (held == null) {
+            throw new RuntimeException("Reservation not found or expired: " + id);
+        }
+        if (!held.holderId().equals(user.getId()) && user.getRole() != User.Role.ADMIN) {
+            throw new AccessDeniedException("Reservation " + id + " is held by another user");
+        }
+        if (!active.remove(id, held)) {
+            throw new RuntimeException("Reservation not found or expired: " + id);
+        }
+        return held;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reservations.sweepMs:1000}")
+    public void expireReservations() {
+        LocalDateTime now = LocalDateTime.now();
+        active.forEach((id, held) -> {
+            if (held.reservation().expiresAt().isBefore(now) && active.remove(id, held)) {
+                inventoryBook.release(held.hold());
+                logger.debug("Reservation {} expired, released {} g of {} carat gold",
+                        id, held.reservation().grams(), held.reservation().carat());
+            }
+        });
+    }
+}
@@ -1,12 +1,13 @@
 package com.goldapp.service;
 
-import com.goldapp.entity.GoldPrice;
 import com.goldapp.entity.Transaction;
 import com.goldapp.entity.User;
 import com.goldapp.entity.Provider;
 import com.goldapp.entity.Client;
 import com.goldapp.repository.TransactionRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,7 +15,10 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Service
 @Transactional
@@ -23,78 +27,33 @@ public class TransactionService {
     private static final int MONEY_SCALE = 2;
 
     private final TransactionRepository transactionRepository;
-    private final UserService userService;
-    private final GoldPriceService goldPriceService;
     private final GoldInventoryService goldInventoryService;
+    private final InvoiceGenerationService invoiceGenerationService;
+
+    @Value("${app.shipments.maxLots:500}")
+    private int maxShipmentLots;
 
     public TransactionService(TransactionRepository transactionRepository,
-                              UserService userService,
-                              GoldPriceService goldPriceService,
-                              GoldInventoryService goldInventoryService) {
+                              GoldInventoryService goldInventoryService,
+                              InvoiceGenerationService invoiceGenerationService) {
         this.transactionRepository = transactionRepository;
-        this.userService = userService;
-        this.goldPriceService = goldPriceService;
         this.goldInventoryService = goldInventoryService;
-    }
-
-    public Transaction buyGold(User user, BigDecimal goldAmount) {
-        validateAmount(goldAmount);
-        GoldPrice currentPrice = currentPriceOrThrow();
-    BigDecimal pricePerGram = currentPrice.getBuyPrice();
-    BigDecimal totalAmount = monetary(goldAmount.multiply(pricePerGram));
-
-        if (!userService.canAfford(user, totalAmount)) {
-            throw new RuntimeException("Insufficient funds");
-        }
-
-        Transaction tx = new Transaction(
-                user,
-                Transaction.TransactionType.BUY,
-                goldAmount,
-                pricePerGram,
-                totalAmount
-        );
-        tx.setStatus(Transaction.TransactionStatus.PENDING);
-        tx = transactionRepository.save(tx);
-
-        userService.updateAccountBalance(user.getId(), totalAmount.negate());
-        userService.updateGoldHoldings(user.getId(), goldAmount);
-
-        complete(tx);
-        return transactionRepository.save(tx);
-    }
-
-    public Transaction sellGold(User user, BigDecimal goldAmount) {
-        validateAmount(goldAmount);
-        GoldPrice currentPrice = currentPriceOrThrow();
-        if (!userService.hasGoldHoldings(user, goldAmount)) {
-            throw new RuntimeException("Insufficient gold holdings");
-        }
-
-    BigDecimal pricePerGram = currentPrice.getSellPrice();
-    BigDecimal totalAmount = monetary(goldAmount.multiply(pricePerGram));
-
-        Transaction tx = new Transaction(
-                user,
-                Transaction.TransactionType.SELL,
-                goldAmount,
-                pricePerGram,
-                totalAmount
-        );
-        tx.setStatus(Transaction.TransactionStatus.PENDING);
-        tx = transactionRepository.save(tx);
-
-        userService.updateGoldHoldings(user.getId(), goldAmount.negate());
-        userService.updateAccountBalance(user.getId(), totalAmount);
-
-        complete(tx);
-        return transactionRepository.save(tx);
+        this.invoiceGenerationService = invoiceGenerationService;
     }
 
     public Page<Transaction> getUserTransactions(User user, Pageable pageable) {
         return transactionRepository.findByUserOrderByCreatedAtDesc(user, pageable);
     }
 
+    public KeysetPage<Transaction> getUserTransactions(Long userId, String cursor, int size) {
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Pageable limit = PageRequest.of(0, size + 1);
+        List<Transaction> rows = after == null
+                ? transactionRepository.findFirstPageByUserId(userId, limit)
+                : transactionRepository.findPageByUserIdAfter(userId, after.createdAt(), after.id(), limit);
+        return KeysetPage.of(rows, size, tx -> new KeysetCursor(tx.getCreatedAt(), tx.getId()));
+    }
+
     public List<Transaction> getUserTransactionsByDateRange(User user, LocalDateTime startDate, LocalDateTime endDate) {
         return transactionRepository.findByUserAndCreatedAtBetweenOrderByCreatedAtDesc(user, startDate, endDate);
     }
@@ -106,11 +65,6 @@ public class TransactionService {
 
     // --- Helpers ---
 
-    private GoldPrice currentPriceOrThrow() {
-        return goldPriceService.getCurrentPrice()
-                .orElseThrow(() -> new RuntimeException("Gold price not available"));
-    }
-
     private void validateAmount(BigDecimal amount) {
         if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
             throw new RuntimeException("Amount must be positive");
@@ -122,10 +76,6 @@ public class TransactionService {
         tx.setCompletedAt(LocalDateTime.now());
     }
 
-    private BigDecimal monetary(BigDecimal value) {
-        return value.setScale(MONEY_SCALE, RoundingMode.HALF_UP);
-    }
-
     public Transaction purchaseFromProvider(User user,
                                             Provider provider,
                                             Integer carat,
@@ -138,9 +88,53 @@ public class TransactionService {
     // Add stock to gold inventory
     goldInventoryService.addStock(carat, grams, pricePerGram, "Purchase from provider", tx);
         complete(tx);
+        // Invoiced asynchronously once this commits
+        invoiceGenerationService.enqueue(tx);
         return transactionRepository.save(tx);
     }
 
+    // All lots of a shipment in one commit: the purchases are inserted in one batch
+    // and each carat's stock is updated once for all of its lots
+    public ShipmentReceipt receiveShipment(User user, Provider provider, List<ShipmentLot> lots) {
+        if (lots == null || lots.isEmpty()) {
+            throw new RuntimeException("Shipment has no lots");
+        }
+        if (lots.size() > maxShipmentLots) {
+            throw new RuntimeException("Shipment has " + lots.size() + " lots; at most " + maxShipmentLots + " are accepted");
+        }
+
+        List<Transaction> purchases = new ArrayList<>(lots.size());
+        for (ShipmentLot lot : lots) {
+            validateAmount(lot.grams());
+            if (lot.carat() == null || lot.pricePerGram() == null) {
+                throw new RuntimeException("Each lot needs a carat and a price per gram");
+            }
+            Transaction tx = Transaction.purchaseFromProvider(user, provider, lot.carat(), lot.grams(), lot.pricePerGram());
+            complete(tx);
+            purchases.add(tx);
+        }
+        purchases = transactionRepository.saveAll(purchases);
+        goldInventoryService.addStock(purchases, "Purchase from provider (shipment)");
+        invoiceGenerationService.enqueueAll(purchases);
+
+        Map<Integer, List<Transaction>> byCarat = new TreeMap<>();
+        for (Transaction tx : purchases) {
+            byCarat.computeIfAbsent(tx.getGoldCarat(), carat -> new ArrayList<>()).add(tx);
+        }
+        List<ShipmentReceipt.CaratTotal> carats = new ArrayList<>(byCarat.size());
+        byCarat.forEach((carat, txs) -> {
+            BigDecimal grams = BigDecimal.ZERO;
+            BigDecimal amount = BigDecimal.ZERO;
+            for (Transaction tx : txs) {
+                grams = grams.add(tx.getGoldAmount());
+                amount = amount.add(tx.getTotalAmount());
+            }
+            carats.add(new ShipmentReceipt.CaratTotal(carat, txs.size(), grams, amount,
+                    amount.divide(grams, MONEY_SCALE, RoundingMode.HALF_UP)));
+        });
+        return new ShipmentReceipt(provider.getId(), purchases.stream().map(Transaction::getId).toList(), carats);
+    }
+
     public Transaction sellToClient(User user,
                                     Client client,
                                     Integer carat,
@@ -153,6 +147,21 @@ public class TransactionService {
     tx = transactionRepository.save(tx);
     goldInventoryService.removeStock(carat, grams, "Sale to client", tx);
     complete(tx);
+    invoiceGenerationService.enqueue(tx);
     return transactionRepository.save(tx);
     }
+
+    // Sells stock already held for this sale; the hold is consumed when this commits
+    public Transaction sellHeldToClient(User user,
+                                        Client client,
+                                        InventoryBook.Hold hold,
+                                        BigDecimal pricePerGram) {
+        Transaction tx = Transaction.saleToClient(user, client, hold.carat(), hold.grams(), pricePerGram);
+        tx.setStatus(Transaction.TransactionStatus.PENDING);
+        tx = transactionRepository.save(tx);
+        goldInventoryService.removeHeldStock(hold, "Sale to client (reservation)", tx);
+        complete(tx);
+        invoiceGenerationService.enqueue(tx);
+        return transactionRepository.save(tx);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,137 @@
+package com.goldapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+// Bloom filters over the unique identifiers of clients, providers and users. A value
+// the filter has never seen is definitely free, so the exists-query is skipped; a
+// probable hit still asks the database. Filters are loaded at startup, fed on every
+// write, and rebuilt periodically to drop deleted values and learn other nodes' writes.
+// Only columns with a unique constraint belong here: that constraint is what catches
+// a value another node wrote since the last rebuild.
+@Service
+public class UniquenessGuard {
+
+    private static final Logger logger = LoggerFactory.getLogger(UniquenessGuard.class);
+
+    public enum Key {
+        CLIENT_CEDULA("clients", "cedula"),
+        PROVIDER_CEDULA("providers", "cedula"),
+        USER_USERNAME("users", "username"),
+        USER_EMAIL("users", "email");
+
+        private final String table;
+        private final String column;
+
+        Key(String table, String column) {
+            this.table = table;
+            this.column = column;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Object swapLock = new Object();
+
+    // Until the first load completes every check goes to the database
+    private volatile Map<Key, BloomFilter> filters;
+    // Filters being rebuilt; writes made meanwhile go to these as well
+    private volatile Map<Key, BloomFilter> building;
+
+    @Value("${app.uniqueness.falsePositiveRate:0.01}")
+    private double falsePositiveRate;
+
+    // Room for this many values beyond what is loaded before the rate degrades
+    @Value("${app.uniqueness.headroom:10000}")
+    private long headroom;
+
+    public UniquenessGuard(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.uniqueness.rebuildMs:600000}", initialDelayString = "${app.uniqueness.rebuildMs:600000}")
+    public synchronized void rebuild() {
+        Map<Key, BloomFilter> next = new EnumMap<>(Key.class);
+        for (Key key : Key.values()) {
+            Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + key.table, Long.class);
+            next.put(key, BloomFilter.create((count != null ? count : 0) + headroom, falsePositiveRate));
+        }
+        synchronized (swapLock) {
+            building = next;
+        }
+        try {
+            for (Key key : Key.values()) {
+                BloomFilter filter = next.get(key);
+                jdbcTemplate.query("SELECT " + key.column + " FROM " + key.table + " WHERE " + key.column + " IS NOT NULL",
+                        rs -> {
+                            filter.put(rs.getString(1));
+                        });
+            }
+            synchronized (swapLock) {
+                filters = next;
+            }
+        } finally {
+            synchronized (swapLock) {
+                building = null;
+            }
+        }
+        logger.debug("Uniqueness filters rebuilt");
+    }
+
+    // True when the value is already taken; the database is asked only on a probable hit
+    public boolean isTaken(Key key, String value, Predicate<String> database) {
+        return mightBeTaken(key, value) && database.test(value);
+    }
+
+    // Filter only: false means definitely free; for callers that batch their own lookups
+    public boolean mightBeTaken(Key key, String value) {
+        if (value == null || value.isEmpty()) {
+            return false;
+        }
+        Map<Key, BloomFilter> current = filters;
+        return current == null || current.get(key).mightContain(value);
+    }
+
+    // Applied after commit: a value recorded before a rebuild starts is committed and
+    // so seen by its scan, and one recorded later lands in the new filters directly
+    public void record(Key key, String value) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (swapLock) {
+                if (filters != null) {
+                    filters.get(key).put(value);
+                }
+                if (building != null) {
+                    building.get(key).put(value);
+                }
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -3,13 +3,13 @@ package com.goldapp.service;
 import com.goldapp.entity.User;
 import com.goldapp.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
 import java.util.Optional;
 
 @Service
@@ -19,6 +19,12 @@ public class UserService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private UserTokenVersionCache userTokenVersionCache;
+    
+    @Autowired
+    private UniquenessGuard uniquenessGuard;
+    
     @Override
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
         User user = userRepository.findByUsernameOrEmail(usernameOrEmail)
@@ -27,18 +33,27 @@ public class UserService implements UserDetailsService {
     }
     
     public User createUser(String username, String email, String rawPassword, String firstName, String lastName) {
-        if (userRepository.existsByUsername(username)) {
+        if (uniquenessGuard.isTaken(UniquenessGuard.Key.USER_USERNAME, username, userRepository::existsByUsername)) {
             throw new RuntimeException("Username already exists: " + username);
         }
         
-        if (userRepository.existsByEmail(email)) {
+        if (uniquenessGuard.isTaken(UniquenessGuard.Key.USER_EMAIL, email, userRepository::existsByEmail)) {
             throw new RuntimeException("Email already exists: " + email);
         }
         
         // Note: Password should be encoded before calling this method
         // This avoids circular dependency with SecurityConfig
         User user = new User(username, email, rawPassword, firstName, lastName);
-        return userRepository.save(user);
+        User saved;
+        try {
+            saved = userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // Another node registered this username or email since our filters were last rebuilt
+            throw new RuntimeException("Username or email already exists");
+        }
+        uniquenessGuard.record(UniquenessGuard.Key.USER_USERNAME, username);
+        uniquenessGuard.record(UniquenessGuard.Key.USER_EMAIL, email);
+        return saved;
     }
     
     public Optional<User> findById(Long id) {
@@ -53,27 +68,35 @@ public class UserService implements UserDetailsService {
         return userRepository.findByEmail(email);
     }
     
-    public User updateAccountBalance(Long userId, BigDecimal amount) {
+    // Password must already be encoded; outstanding tokens stop working
+    public User changePassword(Long userId, String encodedPassword) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
         
-        user.setAccountBalance(user.getAccountBalance().add(amount));
-        return userRepository.save(user);
+        user.setPassword(encodedPassword);
+        return saveWithNewTokenVersion(user);
     }
     
-    public User updateGoldHoldings(Long userId, BigDecimal amount) {
+    public User changeRole(Long userId, User.Role role) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found: " + userId));
         
-        user.setGoldHoldings(user.getGoldHoldings().add(amount));
-        return userRepository.save(user);
+        user.setRole(role);
+        return saveWithNewTokenVersion(user);
     }
     
-    public boolean canAfford(User user, BigDecimal amount) {
-        return user.getAccountBalance().compareTo(amount) >= 0;
+    public User setEnabled(Long userId, boolean enabled) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new RuntimeException("User not found: " + userId));
+        
+        user.setEnabled(enabled);
+        return saveWithNewTokenVersion(user);
     }
     
-    public boolean hasGoldHoldings(User user, BigDecimal amount) {
-        return user.getGoldHoldings().compareTo(amount) >= 0;
+    private User saveWithNewTokenVersion(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        User saved = userRepository.save(user);
+        userTokenVersionCache.invalidateAfterCommit(saved.getId());
+        return saved;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.goldapp.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.goldapp.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+// Current token version per enabled user, so the JWT filter can trust signed
+// claims without loading the user on every request. The short TTL bounds how
+// long another node's password or role change takes to be seen here.
+@Service
+public class UserTokenVersionCache {
+
+    private final UserRepository userRepository;
+    private final Cache<Long, Integer> versions;
+
+    public UserTokenVersionCache(UserRepository userRepository,
+                                 @Value("${app.userCache.maxSize:10000}") long maxSize,
+                                 @Value("${app.userCache.ttlMs:60000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .build();
+    }
+
+    // Disabled or deleted users have no version and never match
+    public boolean isCurrent(Long userId, int tokenVersion) {
+        Integer current = versions.get(userId, id -> userRepository.findActiveTokenVersion(id).orElse(null));
+        return current != null && current == tokenVersion;
+    }
+
+    public void invalidateAfterCommit(Long userId) {
+        versions.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    versions.invalidate(userId);
+                }
+            });
+        }
+    }
+}
@@ -1,15 +1,4 @@
--- Ensure carat_prices table exists for H2
-CREATE TABLE IF NOT EXISTS carat_prices (
-	id BIGSERIAL PRIMARY KEY,
-	carat INT NOT NULL,
-	price_per_gram DECIMAL(10,2) NOT NULL
-);
 INSERT INTO gold_prices (buy_price, sell_price) VALUES (2000.00, 1960.00);
--- Insert carat prices (per gram)
-INSERT INTO carat_prices (carat, price_per_gram) VALUES (14, 45.00);
-INSERT INTO carat_prices (carat, price_per_gram) VALUES (18, 55.00);
-INSERT INTO carat_prices (carat, price_per_gram) VALUES (22, 65.00);
-INSERT INTO carat_prices (carat, price_per_gram) VALUES (24, 75.00);
 
 -- Create admin user (password: ChangeMe123!)
 -- BCrypt hash for 'ChangeMe123!': $2a$12$K5JoBw5ID07mSvmREJ5gxOAOZeZQczSFNXt.3Z0zxpFrm3qeESjKa
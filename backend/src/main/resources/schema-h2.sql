@@ -13,6 +13,7 @@ CREATE TABLE IF NOT EXISTS users (
     gold_holdings DECIMAL(19,6) DEFAULT 0.000000,
     role VARCHAR(10) DEFAULT 'USER',
     enabled BOOLEAN DEFAULT true,
+    token_version INTEGER DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -57,12 +58,14 @@ CREATE TABLE IF NOT EXISTS clients (
     province VARCHAR(100),
     tax_id VARCHAR(50),
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     zip_code VARCHAR(20)
 );
 
 -- Transactions table
+CREATE SEQUENCE IF NOT EXISTS transactions_seq START WITH 1 INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS transactions (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT DEFAULT NEXT VALUE FOR transactions_seq PRIMARY KEY,
     user_id BIGINT NOT NULL,
     client_id BIGINT,
     provider_id BIGINT,
@@ -76,6 +79,7 @@ CREATE TABLE IF NOT EXISTS transactions (
     description VARCHAR(500),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     completed_at TIMESTAMP,
+    idempotency_key VARCHAR(64),
     FOREIGN KEY (user_id) REFERENCES users(id)
 );
 
@@ -83,7 +87,8 @@ CREATE TABLE IF NOT EXISTS transactions (
 CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_transactions_user_id ON transactions(user_id);
-CREATE INDEX IF NOT EXISTS idx_transactions_created_at ON transactions(created_at);
+CREATE INDEX IF NOT EXISTS idx_transactions_user_created_at_id ON transactions(user_id, created_at, id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_transactions_user_idempotency_key ON transactions(user_id, idempotency_key);
 CREATE INDEX IF NOT EXISTS idx_gold_prices_timestamp ON gold_prices(timestamp);
 CREATE INDEX IF NOT EXISTS idx_gold_prices_active ON gold_prices(is_active);
 
@@ -108,6 +113,7 @@ CREATE TABLE IF NOT EXISTS providers (
     province VARCHAR(100),
     tax_id VARCHAR(50),
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0,
     zip_code VARCHAR(20)
 );
 
@@ -122,8 +128,9 @@ CREATE TABLE IF NOT EXISTS inventory_movement (
 );
 
 -- Inventory Movements table (plural, for Hibernate compatibility)
+CREATE SEQUENCE IF NOT EXISTS inventory_movements_seq START WITH 1 INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS inventory_movements (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT DEFAULT NEXT VALUE FOR inventory_movements_seq PRIMARY KEY,
     inventory_id BIGINT NOT NULL,
     balance_after DECIMAL(19,6),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -137,8 +144,9 @@ CREATE TABLE IF NOT EXISTS inventory_movements (
 );
 
 -- Invoices table
+CREATE SEQUENCE IF NOT EXISTS invoices_seq START WITH 1 INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS invoices (
-    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    id BIGINT DEFAULT NEXT VALUE FOR invoices_seq PRIMARY KEY,
     client_id BIGINT,
     provider_id BIGINT,
     currency VARCHAR(10) DEFAULT 'USD',
@@ -163,6 +171,97 @@ CREATE TABLE IF NOT EXISTS invoices (
     FOREIGN KEY (transaction_id) REFERENCES transactions(id)
 );
 
+CREATE SEQUENCE IF NOT EXISTS invoice_items_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS invoice_items (
+    id BIGINT DEFAULT NEXT VALUE FOR invoice_items_seq PRIMARY KEY,
+    invoice_id BIGINT NOT NULL,
+    description VARCHAR(100) NOT NULL,
+    quantity DECIMAL(19,6) NOT NULL,
+    unit_price DECIMAL(19,2) NOT NULL,
+    total DECIMAL(19,2) NOT NULL,
+    gold_carat INT,
+    item_details VARCHAR(200),
+    FOREIGN KEY (invoice_id) REFERENCES invoices(id)
+);
+
+-- Monthly invoice number counters (blocks are reserved under a row lock)
+CREATE TABLE IF NOT EXISTS invoice_number_sequences (
+    period VARCHAR(7) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+-- Trades waiting for their invoice (written with the trade, drained by the invoice generator)
+CREATE SEQUENCE IF NOT EXISTS invoice_outbox_seq START WITH 1 INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS invoice_outbox (
+    id BIGINT DEFAULT NEXT VALUE FOR invoice_outbox_seq PRIMARY KEY,
+    transaction_id BIGINT NOT NULL UNIQUE,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL,
+    processed_at TIMESTAMP,
+    FOREIGN KEY (transaction_id) REFERENCES transactions(id)
+);
+
+-- Daily invoice totals per type and status (maintained incrementally)
+CREATE TABLE IF NOT EXISTS invoice_daily_rollups (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    rollup_date DATE NOT NULL,
+    invoice_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    invoice_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+    UNIQUE (rollup_date, invoice_type, status)
+);
+
+-- Daily inventory movements per carat (maintained incrementally)
+CREATE TABLE IF NOT EXISTS inventory_daily_rollups (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    rollup_date DATE NOT NULL,
+    carat INTEGER NOT NULL,
+    movement_count BIGINT NOT NULL DEFAULT 0,
+    quantity_in DECIMAL(19,6) NOT NULL DEFAULT 0,
+    quantity_out DECIMAL(19,6) NOT NULL DEFAULT 0,
+    value_in DECIMAL(19,2) NOT NULL DEFAULT 0,
+    value_out DECIMAL(19,2) NOT NULL DEFAULT 0,
+    UNIQUE (rollup_date, carat)
+);
+
+-- Append-only gold price ticks (partitioned by day on PostgreSQL)
+CREATE TABLE IF NOT EXISTS price_ticks (
+    tick_time TIMESTAMP NOT NULL,
+    buy_price DECIMAL(19,2) NOT NULL,
+    sell_price DECIMAL(19,2) NOT NULL,
+    price_id BIGINT
+);
+
+-- OHLC candles downsampled from price_ticks (1m, 1h, 1d)
+CREATE TABLE IF NOT EXISTS price_candles (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    resolution VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    open DECIMAL(19,2) NOT NULL,
+    high DECIMAL(19,2) NOT NULL,
+    low DECIMAL(19,2) NOT NULL,
+    close DECIMAL(19,2) NOT NULL,
+    close_sell DECIMAL(19,2) NOT NULL,
+    tick_count BIGINT NOT NULL,
+    UNIQUE (resolution, bucket_start)
+);
+
+CREATE INDEX IF NOT EXISTS idx_price_ticks_tick_time ON price_ticks(tick_time);
+CREATE INDEX IF NOT EXISTS idx_invoices_status_due_date ON invoices(status, due_date);
+-- One invoice per trade, also when two invoice workers race for the same outbox row
+CREATE UNIQUE INDEX IF NOT EXISTS uq_invoices_transaction ON invoices(transaction_id);
+CREATE INDEX IF NOT EXISTS idx_invoice_items_invoice ON invoice_items(invoice_id);
+CREATE INDEX IF NOT EXISTS idx_invoice_outbox_status_next_attempt ON invoice_outbox(status, next_attempt_at);
+CREATE INDEX IF NOT EXISTS idx_inventory_movements_created_at_id ON inventory_movements(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_clients_cedula ON clients(cedula);
+CREATE INDEX IF NOT EXISTS idx_clients_email ON clients(email);
+CREATE INDEX IF NOT EXISTS idx_providers_cedula ON providers(cedula);
+CREATE INDEX IF NOT EXISTS idx_providers_email ON providers(email);
+
 -- Dummy data for clients
 INSERT INTO clients (active, address, cedula, city, client_type, company_name, email, first_name, last_name, notes, phone_number, province, tax_id, zip_code)
 VALUES (true, '123 Main St', '001-1234567-8', 'Santo Domingo', 'INDIVIDUAL', NULL, 'john.doe@email.com', 'John', 'Doe', 'VIP client', '8095551234', 'Distrito Nacional', 'C-123456', '10101');
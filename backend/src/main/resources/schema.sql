@@ -22,6 +22,7 @@ CREATE TABLE IF NOT EXISTS users (
     gold_holdings DECIMAL(19,6) DEFAULT 0.000000,
     role VARCHAR(10) DEFAULT 'USER',
     enabled BOOLEAN DEFAULT true,
+    token_version INTEGER DEFAULT 0,
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
@@ -37,12 +38,6 @@ CREATE TABLE IF NOT EXISTS gold_prices (
     is_active BOOLEAN DEFAULT true
 );
 
-CREATE TABLE IF NOT EXISTS carat_prices (
-    id BIGSERIAL PRIMARY KEY,
-    carat INT NOT NULL,
-    price_per_gram DECIMAL(10,2) NOT NULL
-);
-
 -- Clients table
 CREATE TABLE IF NOT EXISTS clients (
     id BIGSERIAL PRIMARY KEY,
@@ -61,7 +56,8 @@ CREATE TABLE IF NOT EXISTS clients (
     active BOOLEAN DEFAULT true,
     notes VARCHAR(500),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Providers table
@@ -84,7 +80,8 @@ CREATE TABLE IF NOT EXISTS providers (
     active BOOLEAN DEFAULT true,
     notes VARCHAR(500),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    version BIGINT NOT NULL DEFAULT 0
 );
 
 -- Gold inventory table
@@ -100,8 +97,9 @@ CREATE TABLE IF NOT EXISTS gold_inventory (
 );
 
 -- Transactions table (updated for pawn shop)
+CREATE SEQUENCE IF NOT EXISTS transactions_seq INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS transactions (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('transactions_seq'),
     user_id BIGINT NOT NULL REFERENCES users(id),
     client_id BIGINT REFERENCES clients(id),
     provider_id BIGINT REFERENCES providers(id),
@@ -113,12 +111,14 @@ CREATE TABLE IF NOT EXISTS transactions (
     status VARCHAR(20) DEFAULT 'PENDING',
     description VARCHAR(500),
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    completed_at TIMESTAMP
+    completed_at TIMESTAMP,
+    idempotency_key VARCHAR(64)
 );
 
 -- Inventory movements table
+CREATE SEQUENCE IF NOT EXISTS inventory_movements_seq INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS inventory_movements (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('inventory_movements_seq'),
     inventory_id BIGINT NOT NULL REFERENCES gold_inventory(id),
     transaction_id BIGINT REFERENCES transactions(id),
     movement_type VARCHAR(20) NOT NULL,
@@ -130,8 +130,9 @@ CREATE TABLE IF NOT EXISTS inventory_movements (
 );
 
 -- Invoices table
+CREATE SEQUENCE IF NOT EXISTS invoices_seq INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS invoices (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('invoices_seq'),
     invoice_number VARCHAR(50) UNIQUE NOT NULL,
     client_id BIGINT REFERENCES clients(id),
     provider_id BIGINT REFERENCES providers(id),
@@ -154,8 +155,9 @@ CREATE TABLE IF NOT EXISTS invoices (
 );
 
 -- Invoice items table
+CREATE SEQUENCE IF NOT EXISTS invoice_items_seq INCREMENT BY 50;
 CREATE TABLE IF NOT EXISTS invoice_items (
-    id BIGSERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY DEFAULT nextval('invoice_items_seq'),
     invoice_id BIGINT NOT NULL REFERENCES invoices(id),
     description VARCHAR(100) NOT NULL,
     quantity DECIMAL(19,6) NOT NULL,
@@ -166,29 +168,128 @@ CREATE TABLE IF NOT EXISTS invoice_items (
     item_details VARCHAR(200)
 );
 
+-- Monthly invoice number counters (blocks are reserved under a row lock)
+CREATE TABLE IF NOT EXISTS invoice_number_sequences (
+    period VARCHAR(7) PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
+
+-- Trades waiting for their invoice (written with the trade, drained by the invoice generator)
+CREATE SEQUENCE IF NOT EXISTS invoice_outbox_seq INCREMENT BY 50;
+CREATE TABLE IF NOT EXISTS invoice_outbox (
+    id BIGINT PRIMARY KEY DEFAULT nextval('invoice_outbox_seq'),
+    transaction_id BIGINT NOT NULL UNIQUE,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(500),
+    created_at TIMESTAMP NOT NULL,
+    processed_at TIMESTAMP,
+    FOREIGN KEY (transaction_id) REFERENCES transactions(id)
+);
+
+-- Daily invoice totals per type and status (maintained incrementally)
+CREATE TABLE IF NOT EXISTS invoice_daily_rollups (
+    id BIGSERIAL PRIMARY KEY,
+    rollup_date DATE NOT NULL,
+    invoice_type VARCHAR(20) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    invoice_count BIGINT NOT NULL DEFAULT 0,
+    total_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+    UNIQUE (rollup_date, invoice_type, status)
+);
+
+-- Daily inventory movements per carat (maintained incrementally)
+CREATE TABLE IF NOT EXISTS inventory_daily_rollups (
+    id BIGSERIAL PRIMARY KEY,
+    rollup_date DATE NOT NULL,
+    carat INTEGER NOT NULL,
+    movement_count BIGINT NOT NULL DEFAULT 0,
+    quantity_in DECIMAL(19,6) NOT NULL DEFAULT 0,
+    quantity_out DECIMAL(19,6) NOT NULL DEFAULT 0,
+    value_in DECIMAL(19,2) NOT NULL DEFAULT 0,
+    value_out DECIMAL(19,2) NOT NULL DEFAULT 0,
+    UNIQUE (rollup_date, carat)
+);
+
+-- Append-only gold price ticks, one partition per day (created ahead and dropped
+-- past retention by the application); ticks outside them land in the default partition
+CREATE TABLE IF NOT EXISTS price_ticks (
+    tick_time TIMESTAMP NOT NULL,
+    buy_price DECIMAL(19,2) NOT NULL,
+    sell_price DECIMAL(19,2) NOT NULL,
+    price_id BIGINT
+) PARTITION BY RANGE (tick_time);
+CREATE TABLE IF NOT EXISTS price_ticks_default PARTITION OF price_ticks DEFAULT;
+
+-- OHLC candles downsampled from price_ticks (1m, 1h, 1d)
+CREATE TABLE IF NOT EXISTS price_candles (
+    id BIGSERIAL PRIMARY KEY,
+    resolution VARCHAR(10) NOT NULL,
+    bucket_start TIMESTAMP NOT NULL,
+    open DECIMAL(19,2) NOT NULL,
+    high DECIMAL(19,2) NOT NULL,
+    low DECIMAL(19,2) NOT NULL,
+    close DECIMAL(19,2) NOT NULL,
+    close_sell DECIMAL(19,2) NOT NULL,
+    tick_count BIGINT NOT NULL,
+    UNIQUE (resolution, bucket_start)
+);
+
+-- Optimistic lock columns on the second-level cached directory tables, for a database
+-- created before they existed
+ALTER TABLE clients ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE providers ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+
+-- Pooled id sequences: Hibernate takes ids 50 at a time so it can batch inserts, and the
+-- JDBC batch writers draw from the same sequences through the column defaults. For a
+-- database created with BIGSERIAL ids, run this before deploying: it moves the defaults
+-- over and starts each sequence past the existing ids
+ALTER TABLE transactions ALTER COLUMN id SET DEFAULT nextval('transactions_seq');
+ALTER TABLE inventory_movements ALTER COLUMN id SET DEFAULT nextval('inventory_movements_seq');
+ALTER TABLE invoices ALTER COLUMN id SET DEFAULT nextval('invoices_seq');
+ALTER TABLE invoice_items ALTER COLUMN id SET DEFAULT nextval('invoice_items_seq');
+ALTER TABLE invoice_outbox ALTER COLUMN id SET DEFAULT nextval('invoice_outbox_seq');
+SELECT setval('transactions_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM transactions) + 50, (SELECT last_value FROM transactions_seq)));
+SELECT setval('inventory_movements_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM inventory_movements) + 50, (SELECT last_value FROM inventory_movements_seq)));
+SELECT setval('invoices_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM invoices) + 50, (SELECT last_value FROM invoices_seq)));
+SELECT setval('invoice_items_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM invoice_items) + 50, (SELECT last_value FROM invoice_items_seq)));
+SELECT setval('invoice_outbox_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM invoice_outbox) + 50, (SELECT last_value FROM invoice_outbox_seq)));
+
 -- Indexes for better performance
 CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_clients_cedula ON clients(cedula);
+CREATE INDEX IF NOT EXISTS idx_clients_email ON clients(email);
 CREATE INDEX IF NOT EXISTS idx_clients_active ON clients(active);
 CREATE INDEX IF NOT EXISTS idx_providers_cedula ON providers(cedula);
+CREATE INDEX IF NOT EXISTS idx_providers_email ON providers(email);
 CREATE INDEX IF NOT EXISTS idx_providers_active ON providers(active);
 CREATE INDEX IF NOT EXISTS idx_transactions_user_id ON transactions(user_id);
 CREATE INDEX IF NOT EXISTS idx_transactions_client_id ON transactions(client_id);
 CREATE INDEX IF NOT EXISTS idx_transactions_provider_id ON transactions(provider_id);
-CREATE INDEX IF NOT EXISTS idx_transactions_created_at ON transactions(created_at);
+DROP INDEX IF EXISTS idx_transactions_created_at;
+CREATE INDEX IF NOT EXISTS idx_transactions_user_created_at_id ON transactions(user_id, created_at, id);
+CREATE UNIQUE INDEX IF NOT EXISTS uk_transactions_user_idempotency_key ON transactions(user_id, idempotency_key);
 CREATE INDEX IF NOT EXISTS idx_transactions_carat ON transactions(gold_carat);
 CREATE INDEX IF NOT EXISTS idx_inventory_carat ON gold_inventory(carat);
 CREATE INDEX IF NOT EXISTS idx_inventory_movements_inventory ON inventory_movements(inventory_id);
 CREATE INDEX IF NOT EXISTS idx_inventory_movements_transaction ON inventory_movements(transaction_id);
+CREATE INDEX IF NOT EXISTS idx_inventory_movements_created_at_id ON inventory_movements(created_at, id);
 CREATE INDEX IF NOT EXISTS idx_invoices_number ON invoices(invoice_number);
 CREATE INDEX IF NOT EXISTS idx_invoices_client ON invoices(client_id);
 CREATE INDEX IF NOT EXISTS idx_invoices_provider ON invoices(provider_id);
 CREATE INDEX IF NOT EXISTS idx_invoices_status ON invoices(status);
 CREATE INDEX IF NOT EXISTS idx_invoices_issue_date ON invoices(issue_date);
+CREATE INDEX IF NOT EXISTS idx_invoices_status_due_date ON invoices(status, due_date);
+-- One invoice per trade, also when two invoice workers race for the same outbox row
+CREATE UNIQUE INDEX IF NOT EXISTS uq_invoices_transaction ON invoices(transaction_id);
+CREATE INDEX IF NOT EXISTS idx_invoice_rollups_type_status ON invoice_daily_rollups(invoice_type, status);
 CREATE INDEX IF NOT EXISTS idx_invoice_items_invoice ON invoice_items(invoice_id);
+CREATE INDEX IF NOT EXISTS idx_invoice_outbox_status_next_attempt ON invoice_outbox(status, next_attempt_at);
 CREATE INDEX IF NOT EXISTS idx_gold_prices_timestamp ON gold_prices(timestamp);
 CREATE INDEX IF NOT EXISTS idx_gold_prices_active ON gold_prices(is_active);
+CREATE INDEX IF NOT EXISTS idx_price_ticks_tick_time ON price_ticks(tick_time);
 
 -- Insert initial data
 -- Gold prices
@@ -196,15 +297,6 @@ INSERT INTO gold_prices (buy_price, sell_price)
 VALUES (2000.00, 1960.00) 
 ON CONFLICT DO NOTHING;
 
--- Carat prices (Costa Rica colones per gram)
-INSERT INTO carat_prices (carat, price_per_gram) VALUES
-(10, 35000.00),
-(14, 49000.00),
-(18, 63000.00),
-(22, 77000.00),
-(24, 84000.00)
-ON CONFLICT DO NOTHING;
-
 -- Initial gold inventory
 INSERT INTO gold_inventory (carat, quantity_in_grams, average_buy_price, minimum_stock, maximum_stock) VALUES
 (10, 0.000, 35000.00, 10.00, 500.00),
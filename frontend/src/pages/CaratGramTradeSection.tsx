@@ -1,6 +1,7 @@
-import React, { useState } from 'react';
-import { useQuery, useMutation } from 'react-query';
+import React, { useEffect, useState } from 'react';
+import { useQuery, useMutation, useQueryClient } from 'react-query';
 import { caratService, CaratPrice } from '../services/caratService';
+import { subscribeToPrices } from '../services/priceStream';
 import toast from 'react-hot-toast';
 
 const CaratGramTradeSection: React.FC = () => {
@@ -8,8 +9,17 @@ const CaratGramTradeSection: React.FC = () => {
   const [grams, setGrams] = useState(1);
   const [tradeType, setTradeType] = useState<'BUY' | 'SELL'>('BUY');
 
+  const queryClient = useQueryClient();
   const { data: caratPrices, isLoading } = useQuery('caratPrices', caratService.getCaratPrices);
-  const selectedPrice = caratPrices?.find((p: CaratPrice) => p.carat === carat)?.pricePerGram || 0;
+
+  useEffect(
+    () => subscribeToPrices({
+      onCaratPrices: (snapshot) => queryClient.setQueryData<CaratPrice[]>('caratPrices', snapshot.prices),
+    }),
+    [queryClient]
+  );
+  const selectedQuote = caratPrices?.find((p: CaratPrice) => p.carat === carat);
+  const selectedPrice = (tradeType === 'BUY' ? selectedQuote?.buyPrice : selectedQuote?.sellPrice) || 0;
   const total = grams * selectedPrice;
 
   const buyMutation = useMutation(() => caratService.buyGoldByCarat(carat, grams), {
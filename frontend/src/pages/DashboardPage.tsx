@@ -1,19 +1,30 @@
-import React from 'react';
-import { useQuery } from 'react-query';
+import React, { useEffect } from 'react';
+import { useQuery, useQueryClient } from 'react-query';
 import { Link } from 'react-router-dom';
 import Layout from '../components/Layout';
 import { goldService } from '../services/goldService';
+import { subscribeToPrices } from '../services/priceStream';
 import { TrendingUp, TrendingDown, ShoppingCart, DollarSign, History, ArrowRight, BarChart3 } from 'lucide-react';
 
 const DashboardPage: React.FC = () => {
+  const queryClient = useQueryClient();
+
+  // Initial load only; later prices are pushed over the price stream
   const { data: goldPrice, isLoading: isPriceLoading } = useQuery(
     'currentGoldPrice',
     goldService.getCurrentPrice,
     {
-      refetchInterval: 30000, // Refresh every 30 seconds
+      staleTime: Infinity,
     }
   );
 
+  useEffect(
+    () => subscribeToPrices({
+      onGoldPrice: (price) => queryClient.setQueryData('currentGoldPrice', price),
+    }),
+    [queryClient]
+  );
+
   const { data: transactionHistory } = useQuery(
     'recentTransactions',
     () => goldService.getTransactionHistory(0, 5),
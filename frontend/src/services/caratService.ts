@@ -1,22 +1,36 @@
 import api from './api';
 
 export interface CaratPrice {
-  id: number;
   carat: number;
+  purity: number;
+  buyPrice: number;
+  sellPrice: number;
   pricePerGram: number;
 }
 
+export interface CaratPriceSnapshot {
+  version: number;
+  spotPriceId: number;
+  derivedAt: string;
+  prices: CaratPrice[];
+}
+
 export const caratService = {
   getCaratPrices: async (): Promise<CaratPrice[]> => {
     const response = await api.get('/carat-prices');
     return response.data;
   },
-  buyGoldByCarat: async (carat: number, grams: number): Promise<any> => {
-    const response = await api.post(`/carat-trade/buy?carat=${carat}&grams=${grams}`);
+  // Pass the same key when retrying a trade so the server answers it once
+  buyGoldByCarat: async (carat: number, grams: number, idempotencyKey: string = crypto.randomUUID()): Promise<any> => {
+    const response = await api.post(`/carat-trade/buy?carat=${carat}&grams=${grams}`, null, {
+      headers: { 'Idempotency-Key': idempotencyKey },
+    });
     return response.data;
   },
-  sellGoldByCarat: async (carat: number, grams: number): Promise<any> => {
-    const response = await api.post(`/carat-trade/sell?carat=${carat}&grams=${grams}`);
+  sellGoldByCarat: async (carat: number, grams: number, idempotencyKey: string = crypto.randomUUID()): Promise<any> => {
+    const response = await api.post(`/carat-trade/sell?carat=${carat}&grams=${grams}`, null, {
+      headers: { 'Idempotency-Key': idempotencyKey },
+    });
     return response.data;
   },
 };
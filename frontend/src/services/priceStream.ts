@@ -0,0 +1,23 @@
+import { API_BASE_URL } from './api';
+import { GoldPrice } from './goldService';
+import { CaratPriceSnapshot } from './caratService';
+
+export interface PriceStreamHandlers {
+  onGoldPrice?: (price: GoldPrice) => void;
+  onCaratPrices?: (snapshot: CaratPriceSnapshot) => void;
+}
+
+// Subscribes to pushed price ticks; EventSource reconnects on its own and resumes
+// from the last event it saw. Returns a function that closes the stream.
+export const subscribeToPrices = (handlers: PriceStreamHandlers): (() => void) => {
+  const source = new EventSource(`${API_BASE_URL}/gold-prices/stream`);
+
+  source.addEventListener('gold-price', (event) => {
+    handlers.onGoldPrice?.(JSON.parse((event as MessageEvent).data));
+  });
+  source.addEventListener('carat-prices', (event) => {
+    handlers.onCaratPrices?.(JSON.parse((event as MessageEvent).data));
+  });
+
+  return () => source.close();
+};